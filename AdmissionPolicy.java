@@ -0,0 +1,66 @@
+package org.fog.test.perfeval;
+
+/**
+ * Admission control of the tuples arriving for the modules of a gateway or router.
+ * <p>
+ * A device admits a tuple while fewer than {@code capacity} tuples are executing on it. Otherwise the tuple is
+ * shed: {@link Mode#DROP} discards it and {@link Mode#DEFER} retries it after {@code deferDelay}, up to
+ * {@code maxDeferrals} times before discarding it.
+ *
+ * @author Narendra : x23429615
+ */
+public class AdmissionPolicy {
+
+    public enum Mode {
+        OFF,
+        DROP,
+        DEFER
+    }
+
+    private Mode mode = Mode.OFF;
+    private int capacity = 50;
+    private double deferDelay = 1.0;
+    private int maxDeferrals = 10;
+
+    public boolean isEnabled() {
+        return mode != Mode.OFF;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Admission capacity must be at least 1");
+        }
+        this.capacity = capacity;
+    }
+
+    public double getDeferDelay() {
+        return deferDelay;
+    }
+
+    public void setDeferDelay(double deferDelay) {
+        if (deferDelay <= 0) {
+            throw new IllegalArgumentException("Defer delay must be positive");
+        }
+        this.deferDelay = deferDelay;
+    }
+
+    public int getMaxDeferrals() {
+        return maxDeferrals;
+    }
+
+    public void setMaxDeferrals(int maxDeferrals) {
+        this.maxDeferrals = maxDeferrals;
+    }
+}
@@ -11,24 +11,33 @@ import org.cloudbus.cloudsim.sdn.overbooking.BwProvisionerOverbooking;
 import org.cloudbus.cloudsim.sdn.overbooking.PeProvisionerOverbooking;
 import org.fog.application.AppEdge;
 import org.fog.application.AppLoop;
+import org.fog.application.AppModule;
 import org.fog.application.Application;
 import org.fog.application.selectivity.FractionalSelectivity;
 import org.fog.entities.*;
 import org.fog.placement.Controller;
 import org.fog.placement.ModuleMapping;
+import org.fog.placement.ModulePlacement;
 import org.fog.placement.ModulePlacementEdgewards;
 import org.fog.placement.ModulePlacementMapping;
 import org.fog.policy.AppModuleAllocationPolicy;
 import org.fog.scheduler.StreamOperatorScheduler;
 import org.fog.utils.FogLinearPowerModel;
 import org.fog.utils.FogUtils;
+import org.fog.utils.NetworkUsageMonitor;
 import org.fog.utils.TimeKeeper;
-import org.fog.utils.distribution.DeterministicDistribution;
+import org.fog.utils.distribution.Distribution;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Simulation for Advance Metering Infrastructure
@@ -39,90 +48,638 @@ public class AdvanceMeteringInfrastructure {
     static List<FogDevice> fogDevices = new ArrayList<FogDevice>();
     static List<Sensor> sensors = new ArrayList<Sensor>();
     static List<Actuator> actuators = new ArrayList<Actuator>();
+    static TopologyRegistry topology = new TopologyRegistry();
     static int numOfSites = 30;
     static int numOfPulseMeterPerField = 8;
     static int numOfElectricitySensors = 10;
     static int frequencySensorPerFields = 4;
     static int analogValueMeterPerField = 6;
+    static double sensorTransmitInterval = 5; // inter-transmission time of every meter
+    static int cohortSize = 1; // meters simulated by one sensor entity, 1 simulates every meter separately
+    static double cohortJitter = 0; // fraction of the period the phases of the meters of a cohort are spread over
+    static int cohortPhaseSlots = 10; // number of distinct phases within a cohort
 
     private static boolean CLOUD = false;
+    private static boolean AUTO_PLACEMENT = false; // places the meter modules with LatencyAwarePlacement instead of ModulePlacementEdgewards
+    private static double placementUtilisationCap = 0.8; // largest share of a device's MIPS the automatic placement may commit
+    static DeploymentSpec deploymentSpec = null; // tier of every module, null for the edge or cloud deployment
+    private static boolean printSummary = false;
+    private static double latencyWindow = 1000; // length of a latency snapshot window in simulated time
+    private static String latencyExportPath = null; // CSV file of the windowed latency snapshots, not written if null
+    static double simulationHorizon = 0; // simulated time after which the run ends, 0 lets the Controller end it
+
+    static final String SUMMARY_PREFIX = "#AMI ";
+    static BatchingPolicy batchingPolicy = new BatchingPolicy(); // edge aggregation of the readings forwarded to the analytics module
+    static RollupPolicy rollupPolicy = new RollupPolicy(); // site and regional roll-ups between the meter modules and the analytics module
+    static String arrivalProfile = "deterministic"; // arrival profile of the meters without one of their own, see ArrivalProfiles
+    static Map<MeterType, String> meterArrivalProfiles = new EnumMap<MeterType, String>(MeterType.class);
+    static AdmissionPolicy admissionPolicy = new AdmissionPolicy(); // admission control of the gateways and routers
+    static PowerPolicy powerPolicy = new PowerPolicy(); // sleep states and speed of the meter gateways
+    static int numOfProxies = 1; // proxies of the regional tier the sites are spread over
+    static ProxyAssignment.Strategy proxyAssignment = ProxyAssignment.Strategy.HASH;
+    static int proxyVirtualNodes = 100; // points of every proxy on the consistent hash ring
+    static int failedProxy = -1; // index of the proxy that fails during the run, -1 if none does
+    static double proxyFailureTime = 0;
+    static double sampleInterval = 0; // simulated time between two resource samples of every device, 0 to not sample
+    static String sampleExportPath = "ami-samples.bin";
+    static PayloadEncoding sensorEncoding = new PayloadEncoding(); // encoding of the readings sent by the meters
+    static PayloadEncoding upstreamEncoding = new PayloadEncoding(); // encoding of the readings forwarded by the meter modules
+    static boolean stopAtSteadyState = false; // ends the run once the ConvergenceMonitor detects a steady state
+    static double convergenceTolerance = 0.05; // largest confidence interval half width, relative to the mean
+    static double convergenceAbsoluteTolerance = 0.01; // half width always accepted, for means near zero
+    static double convergenceBatchLength = 500;
+    static int convergenceWarmupBatches = 2;
+    static int convergenceMinBatches = 10;
+    static boolean calendarEventQueue = false; // runs CloudSim on a CalendarFutureQueue instead of its sorted set
+    static Application application;
+    static LoopLatencyRecorder latencyRecorder;
+    static LatencyAwarePlacement automaticPlacement;
+    static ProxyAssignment siteAssignment;
+    static ProxyFailover proxyFailover;
+    static ResourceSampler resourceSampler;
+    static ConvergenceMonitor convergenceMonitor;
 
     public static void main(String[] args) {
 
         Log.printLine("Starting Advance Metering Infrastructure Edge Simulation");
 
         try {
+            configure(args);
+            // the Controller ends the JVM with System.exit once the simulation is over, so results are finalised from a hook
+            Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    if (latencyRecorder != null) {
+                        latencyRecorder.close(CloudSim.clock());
+                    }
+                    if (resourceSampler != null) {
+                        resourceSampler.close();
+                    }
+                    if (printSummary) {
+                        printRunSummary();
+                    }
+                }
+            }));
             Log.disable();
-            int num_user = 1; // number of cloud users
-            Calendar calendar = Calendar.getInstance();
-            boolean trace_flag = false; // mean trace events
 
-            CloudSim.init(num_user, calendar, trace_flag);
+            runSimulation();
 
-            String appId = "AdvanceMeteringInfrastructureApplication"; // identifier of the application
+            Log.printLine("Advanced Metering Infrastructure Simulation Finished!");
+        } catch (Exception e) {
+            e.printStackTrace();
+            Log.printLine("Unwanted errors happen");
+            System.exit(1); // lets AmiSweepRunner tell a failed run from one the Controller ended
+        }
+    }
 
-            FogBroker broker = new FogBroker("broker");
+    /**
+     * Builds the scenario, places the application and runs the simulation, either until the Controller stops it
+     * or until the simulation horizon if one is set.
+     */
+    static void runSimulation() throws Exception {
+        prepareSimulation();
+        executeSimulation();
+    }
 
-            Application application = createApplication(appId, broker.getId());
-            application.setUserId(broker.getId());
+    /**
+     * Builds the scenario, places the application and submits it to a new Controller, leaving the simulation
+     * ready to start.
+     */
+    static void prepareSimulation() throws Exception {
+        setUpScenario();
 
-            createFogDevices(broker.getId(), appId);
+        Controller controller = null;
 
-            Controller controller = null;
+        ModulePlacement modulePlacement = createModulePlacement();
 
-            ModuleMapping moduleMapping = ModuleMapping.createModuleMapping(); // initializing a module mapping
-            for (FogDevice device : fogDevices) {
+        controller = new Controller("master-controller", fogDevices, sensors,
+                actuators);
 
-                if (device.getName().startsWith("m")) { // names of all Pulse devices start with 'm'
-                    moduleMapping.addModuleToDevice("pulse-monitoring", device.getName());  // fixing 1 instance of the pulse monitoring module to each Pulse device
-                }
+        controller.submitApplication(application, modulePlacement);
 
-                if (device.getName().startsWith("a")) { // names of all ElectricFrequency devices start with 'a'
-                    moduleMapping.addModuleToDevice("electric-frequency-sensing", device.getName());  // fixing 1 instance of the frequencySensor sensing module
-                }
+        if (simulationHorizon > 0) {
+            CloudSim.terminateSimulation(simulationHorizon); // ends the run before the Controller stops the simulation and exits the JVM
+        }
+    }
 
-                if (device.getName().startsWith("b")) { // names of all ELECTRICITY Sensor devices start with 'b'
-                    moduleMapping.addModuleToDevice("electricity-usage", device.getName());  // fixing 1 instance of the electricity detection module
-                }
+    /**
+     * Runs the simulation prepared by {@link #prepareSimulation}.
+     */
+    static void executeSimulation() throws Exception {
+        TimeKeeper.getInstance().setSimulationStartTime(Calendar.getInstance().getTimeInMillis());
 
-                if (device.getName().startsWith("p")) { // names of all Water Sensor devices start with 'p'
-                    moduleMapping.addModuleToDevice("water-sensing", device.getName());  // fixing 1 instance of the water sensing module
-                }
+        CloudSim.startSimulation();
+
+        CloudSim.stopSimulation();
+    }
+
+    /**
+     * Initialises CloudSim and creates the application and the physical topology of the scenario.
+     *
+     * @return identifier of the broker the application belongs to
+     */
+    static int setUpScenario() throws Exception {
+        int num_user = 1; // number of cloud users
+        Calendar calendar = Calendar.getInstance();
+        boolean trace_flag = false; // mean trace events
+
+        CloudSim.init(num_user, calendar, trace_flag);
+        if (calendarEventQueue) {
+            CalendarFutureQueue.install();
+        }
+        resetTopology();
+
+        String appId = "AdvanceMeteringInfrastructureApplication"; // identifier of the application
 
-                if (device.getName().startsWith("f")) { // names of all AnalogValueMeter devices start with 'f'
-                    moduleMapping.addModuleToDevice("analog-value-usage", device.getName());  // fixing 1 instance of the analogValue detection module
+        FogBroker broker = new FogBroker("broker");
+
+        application = createApplication(appId, broker.getId());
+        application.setUserId(broker.getId());
+        latencyRecorder = new LoopLatencyRecorder(application.getLoops(), latencyWindow, latencyExportPath);
+
+        createFogDevices(broker.getId(), appId);
+        convergenceMonitor = stopAtSteadyState ? new ConvergenceMonitor(latencyRecorder, topology, convergenceBatchLength,
+                convergenceTolerance, convergenceAbsoluteTolerance, convergenceWarmupBatches, convergenceMinBatches) : null;
+        resourceSampler = sampleInterval > 0 ? new ResourceSampler(fogDevices, sampleInterval, sampleExportPath) : null;
+        proxyFailover = null;
+        if (failedProxy >= 0) {
+            if (failedProxy >= numOfProxies) {
+                throw new IllegalArgumentException("There is no proxy " + failedProxy + " to fail");
+            }
+            proxyFailover = new ProxyFailover(topology, siteAssignment, failedProxy, proxyFailureTime);
+        }
+        if (admissionPolicy.isEnabled()) {
+            for (Tier tier : new Tier[]{Tier.GATEWAY, Tier.ROUTER}) {
+                for (FogDevice device : topology.getDevices(tier)) {
+                    ((MeteringFogDevice) device).setAdmissionPolicy(admissionPolicy);
                 }
+            }
+        }
+        return broker.getId();
+    }
 
+    /**
+     * Forgets the devices, sensors and actuators of a previous scenario.
+     */
+    static void resetTopology() {
+        fogDevices.clear();
+        sensors.clear();
+        actuators.clear();
+        topology.clear();
+    }
+
+    /**
+     * Places the modules with a static mapping in cloud deployment mode or when a deployment spec is given, lets
+     * {@link LatencyAwarePlacement} choose the devices of the meter modules when automatic placement is on, and
+     * otherwise places them edgewards from their gateways.
+     */
+    static ModulePlacement createModulePlacement() {
+        automaticPlacement = null;
+        if (!CLOUD && deploymentSpec == null && AUTO_PLACEMENT) {
+            automaticPlacement = new LatencyAwarePlacement(topology, application, placementUtilisationCap);
+            return new ModulePlacementMapping(fogDevices, application, addStandbyProxies(automaticPlacement.createModuleMapping()));
+        }
+        ModuleMapping moduleMapping = addStandbyProxies(createModuleMapping());
+        return (CLOUD || deploymentSpec != null) ? (new ModulePlacementMapping(fogDevices, application, moduleMapping))
+                : (new ModulePlacementEdgewards(fogDevices, sensors, actuators, application, moduleMapping));
+    }
+
+    /**
+     * Deploys the modules of every proxy on all proxies when a proxy fails during the run, so the proxies its
+     * sites move to can serve them.
+     */
+    private static ModuleMapping addStandbyProxies(ModuleMapping moduleMapping) {
+        if (proxyFailover == null) {
+            return moduleMapping;
+        }
+        Set<String> proxyModules = new LinkedHashSet<String>();
+        for (FogDevice proxy : topology.getDevices(Tier.PROXY)) {
+            List<String> modules = moduleMapping.getModuleMapping().get(proxy.getName());
+            if (modules != null) {
+                proxyModules.addAll(modules);
             }
+        }
+        for (FogDevice proxy : topology.getDevices(Tier.PROXY)) {
+            for (String module : proxyModules) {
+                moduleMapping.addModuleToDevice(module, proxy.getName());
+            }
+        }
+        return moduleMapping;
+    }
 
-            moduleMapping.addModuleToDevice("smart-meter-analytics", "cloud"); // fixing instances of smart meter assessment module in the Cloud
-            if (CLOUD) {
-                // if the mode of deployment is cloud-based
-                moduleMapping.addModuleToDevice("analog-value-usage", "cloud");
-                moduleMapping.addModuleToDevice("electricity-usage", "cloud");
-                moduleMapping.addModuleToDevice("pulse-monitoring", "cloud");
-                moduleMapping.addModuleToDevice("electric-frequency-sensing", "cloud");
-                moduleMapping.addModuleToDevice("smart-meter-analytics", "cloud");
-                moduleMapping.addModuleToDevice("water-sensing", "cloud");
+    /**
+     * Maps every module to the devices of its tier: all of them to the cloud in cloud deployment mode, as the
+     * deployment spec says if one is given, and otherwise the processing module of every meter type to its
+     * gateways and the analytics module to the cloud.
+     */
+    static ModuleMapping createModuleMapping() {
+        List<String> moduleNames = new ArrayList<String>();
+        for (AppModule module : application.getModules()) {
+            moduleNames.add(module.getName());
+        }
+        DeploymentSpec spec;
+        if (CLOUD) {
+            spec = DeploymentSpec.allInCloud(moduleNames); // if the mode of deployment is cloud-based
+        } else {
+            spec = (deploymentSpec != null) ? deploymentSpec : new DeploymentSpec();
+        }
+        return spec.createModuleMapping(topology, moduleNames);
+    }
+
+    /**
+     * Applies scenario parameters given on the command line as {@code key=value} pairs, e.g.
+     * {@code sites=100 pulseMeters=16 cloud=true sensorInterval=10 summary=true}.
+     *
+     * @param args command line arguments
+     */
+    static void configure(String[] args) {
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            String key = arg.substring(0, separator).trim();
+            String value = arg.substring(separator + 1).trim();
+            switch (key) {
+                case "sites":
+                    numOfSites = Integer.parseInt(value);
+                    break;
+                case "pulseMeters":
+                    numOfPulseMeterPerField = Integer.parseInt(value);
+                    break;
+                case "electricitySensors":
+                    numOfElectricitySensors = Integer.parseInt(value);
+                    break;
+                case "frequencySensors":
+                    frequencySensorPerFields = Integer.parseInt(value);
+                    break;
+                case "analogMeters":
+                    analogValueMeterPerField = Integer.parseInt(value);
+                    break;
+                case "cloud":
+                    CLOUD = Boolean.parseBoolean(value);
+                    break;
+                case "placement":
+                    if (!value.equals("auto") && !value.equals("edgewards")) {
+                        throw new IllegalArgumentException("Unknown placement " + value + ", expected auto or edgewards");
+                    }
+                    AUTO_PLACEMENT = value.equals("auto");
+                    break;
+                case "deployment":
+                    deploymentSpec = DeploymentSpec.parse(value);
+                    break;
+                case "placementUtilisationCap":
+                    placementUtilisationCap = Double.parseDouble(value);
+                    break;
+                case "sensorInterval":
+                    sensorTransmitInterval = Double.parseDouble(value);
+                    break;
+                case "cohortSize":
+                    cohortSize = Integer.parseInt(value);
+                    break;
+                case "cohortJitter":
+                    cohortJitter = Double.parseDouble(value);
+                    break;
+                case "cohortPhaseSlots":
+                    cohortPhaseSlots = Integer.parseInt(value);
+                    break;
+                case "latencyWindow":
+                    latencyWindow = Double.parseDouble(value);
+                    break;
+                case "latencyOut":
+                    latencyExportPath = value;
+                    break;
+                case "batching":
+                    batchingPolicy.setMode(BatchingPolicy.Mode.valueOf(value.toUpperCase()));
+                    break;
+                case "batchSize":
+                    batchingPolicy.setBatchSize(Integer.parseInt(value));
+                    break;
+                case "batchWindow":
+                    batchingPolicy.setWindow(Double.parseDouble(value));
+                    break;
+                case "batchCpuPerReading":
+                    batchingPolicy.setCpuPerReading(Double.parseDouble(value));
+                    break;
+                case "batchHeaderBytes":
+                    batchingPolicy.setHeaderBytes(Long.parseLong(value));
+                    break;
+                case "batchBytesPerReading":
+                    batchingPolicy.setBytesPerReading(Long.parseLong(value));
+                    break;
+                case "horizon":
+                    simulationHorizon = Double.parseDouble(value);
+                    break;
+                case "rollup":
+                    rollupPolicy.setEnabled(Boolean.parseBoolean(value));
+                    break;
+                case "siteRollupCpu":
+                    rollupPolicy.setSiteCpu(Double.parseDouble(value));
+                    break;
+                case "siteRollupSelectivity":
+                    rollupPolicy.setSiteSelectivity(Double.parseDouble(value));
+                    break;
+                case "siteRollupBytes":
+                    rollupPolicy.setSiteRollupBytes(Long.parseLong(value));
+                    break;
+                case "regionalRollupCpu":
+                    rollupPolicy.setRegionalCpu(Double.parseDouble(value));
+                    break;
+                case "regionalRollupSelectivity":
+                    rollupPolicy.setRegionalSelectivity(Double.parseDouble(value));
+                    break;
+                case "regionalRollupBytes":
+                    rollupPolicy.setRegionalRollupBytes(Long.parseLong(value));
+                    break;
+                case "analyticsCpu":
+                    rollupPolicy.setAnalyticsCpu(Double.parseDouble(value));
+                    break;
+                case "proxies":
+                    numOfProxies = Integer.parseInt(value);
+                    break;
+                case "proxyAssignment":
+                    proxyAssignment = ProxyAssignment.Strategy.valueOf(value.toUpperCase());
+                    break;
+                case "proxyVirtualNodes":
+                    proxyVirtualNodes = Integer.parseInt(value);
+                    break;
+                case "failProxy":
+                    failedProxy = Integer.parseInt(value);
+                    break;
+                case "failAt":
+                    proxyFailureTime = Double.parseDouble(value);
+                    break;
+                case "sampleInterval":
+                    sampleInterval = Double.parseDouble(value);
+                    break;
+                case "sampleOut":
+                    sampleExportPath = value;
+                    break;
+                case "sensorEncoding":
+                    sensorEncoding.setCodec(PayloadEncoding.Codec.valueOf(value.toUpperCase()));
+                    break;
+                case "sensorEncodingRatio":
+                    sensorEncoding.setRatio(Double.parseDouble(value));
+                    break;
+                case "sensorDecodeCpuPerByte":
+                    sensorEncoding.setDecodeCpuPerByte(Double.parseDouble(value));
+                    break;
+                case "upstreamEncoding":
+                    upstreamEncoding.setCodec(PayloadEncoding.Codec.valueOf(value.toUpperCase()));
+                    break;
+                case "upstreamEncodingRatio":
+                    upstreamEncoding.setRatio(Double.parseDouble(value));
+                    break;
+                case "upstreamEncodeCpuPerByte":
+                    upstreamEncoding.setEncodeCpuPerByte(Double.parseDouble(value));
+                    break;
+                case "upstreamDecodeCpuPerByte":
+                    upstreamEncoding.setDecodeCpuPerByte(Double.parseDouble(value));
+                    break;
+                case "convergence":
+                    stopAtSteadyState = Boolean.parseBoolean(value);
+                    break;
+                case "convergenceTolerance":
+                    convergenceTolerance = Double.parseDouble(value);
+                    break;
+                case "convergenceAbsoluteTolerance":
+                    convergenceAbsoluteTolerance = Double.parseDouble(value);
+                    break;
+                case "convergenceBatch":
+                    convergenceBatchLength = Double.parseDouble(value);
+                    break;
+                case "convergenceWarmup":
+                    convergenceWarmupBatches = Integer.parseInt(value);
+                    break;
+                case "convergenceMinBatches":
+                    convergenceMinBatches = Integer.parseInt(value);
+                    break;
+                case "eventQueue":
+                    if (!value.equals("sorted") && !value.equals("calendar")) {
+                        throw new IllegalArgumentException("Unknown event queue: " + value);
+                    }
+                    calendarEventQueue = value.equals("calendar");
+                    break;
+                case "arrival":
+                    arrivalProfile = value;
+                    break;
+                case "admission":
+                    admissionPolicy.setMode(AdmissionPolicy.Mode.valueOf(value.toUpperCase()));
+                    break;
+                case "admissionQueue":
+                    admissionPolicy.setCapacity(Integer.parseInt(value));
+                    break;
+                case "deferDelay":
+                    admissionPolicy.setDeferDelay(Double.parseDouble(value));
+                    break;
+                case "maxDeferrals":
+                    admissionPolicy.setMaxDeferrals(Integer.parseInt(value));
+                    break;
+                case "sleep":
+                    powerPolicy.setSleepState(PowerPolicy.SleepState.valueOf(value.toUpperCase()));
+                    break;
+                case "sleepTimeout":
+                    powerPolicy.setSleepTimeout(Double.parseDouble(value));
+                    break;
+                case "sleepPower":
+                    powerPolicy.setSleepPowerRatio(Double.parseDouble(value));
+                    break;
+                case "wakeLatency":
+                    powerPolicy.setWakeLatency(Double.parseDouble(value));
+                    break;
+                case "wakeEnergy":
+                    powerPolicy.setWakeEnergy(Double.parseDouble(value));
+                    break;
+                case "scheduling":
+                    powerPolicy.setScheduling(PowerPolicy.Scheduling.valueOf(value.toUpperCase()));
+                    break;
+                case "stretchFactor":
+                    powerPolicy.setStretchFactor(Double.parseDouble(value));
+                    break;
+                case "summary":
+                    printSummary = Boolean.parseBoolean(value);
+                    break;
+                default:
+                    if (key.startsWith("arrival.")) {
+                        meterArrivalProfiles.put(MeterType.valueOf(key.substring("arrival.".length()).toUpperCase()), value);
+                        break;
+                    }
+                    throw new IllegalArgumentException("Unknown scenario parameter: " + key);
             }
+        }
+        if (deploymentSpec != null) {
+            deploymentSpec.validate(rollupPolicy.isEnabled());
+        }
+        if (upstreamEncoding.isEnabled() && !batchingPolicy.isEnabled() && !rollupPolicy.isEnabled()) {
+            throw new IllegalArgumentException("upstreamEncoding needs forwarded readings: set batching or rollup=true");
+        }
+        if (!sensorEncoding.isEnabled() && sensorEncoding.hasOverrides()) {
+            throw new IllegalArgumentException("sensorEncodingRatio and sensorDecodeCpuPerByte need a sensorEncoding codec");
+        }
+        if (!upstreamEncoding.isEnabled() && upstreamEncoding.hasOverrides()) {
+            throw new IllegalArgumentException("upstreamEncoding ratio and cost overrides need an upstreamEncoding codec");
+        }
+    }
 
-            controller = new Controller("master-controller", fogDevices, sensors,
-                    actuators);
+    /**
+     * Prints the results of the run as machine readable {@code #AMI key=value} lines, one metric per line.
+     * Network usage is normalised by the simulated time that actually elapsed.
+     */
+    static void printRunSummary() {
+        if (application == null) {
+            return;
+        }
+        double clock = CloudSim.clock();
+        System.out.println(SUMMARY_PREFIX + "simulatedTime=" + clock);
+        for (AppLoop loop : application.getLoops()) {
+            Double delay = TimeKeeper.getInstance().getLoopIdToCurrentAverage().get(loop.getLoopId());
+            System.out.println(SUMMARY_PREFIX + "loop." + LoopLatencyRecorder.getLoopName(loop) + "=" + (delay == null ? "" : delay));
+        }
+        if (latencyRecorder != null) {
+            for (int i = 0; i < latencyRecorder.getLoopCount(); i++) {
+                LatencyHistogram histogram = latencyRecorder.getHistogram(i);
+                String prefix = SUMMARY_PREFIX + "loop." + latencyRecorder.getLoopName(i);
+                System.out.println(prefix + ".count=" + histogram.getCount());
+                System.out.println(prefix + ".p50=" + histogram.getValueAtQuantile(0.5));
+                System.out.println(prefix + ".p95=" + histogram.getValueAtQuantile(0.95));
+                System.out.println(prefix + ".p99=" + histogram.getValueAtQuantile(0.99));
+                System.out.println(prefix + ".p999=" + histogram.getValueAtQuantile(0.999));
+                System.out.println(prefix + ".max=" + histogram.getMax());
+            }
+        }
+        System.out.println(SUMMARY_PREFIX + "networkUsage=" + (clock > 0 ? NetworkUsageMonitor.getNetworkUsage() / clock : 0.0));
+        long wanBytes = ((MeteringFogDevice) topology.getCloud()).getDownlinkBytes();
+        for (FogDevice proxy : topology.getDevices(Tier.PROXY)) {
+            wanBytes += ((MeteringFogDevice) proxy).getUplinkBytes();
+        }
+        System.out.println(SUMMARY_PREFIX + "wanBytes=" + wanBytes);
+        System.out.println(SUMMARY_PREFIX + "wanUsage=" + (clock > 0 ? wanBytes / clock : 0.0));
+        printProxySummary();
+        System.out.println(SUMMARY_PREFIX + "cloudProcessedTuples=" + ((MeteringFogDevice) topology.getCloud()).getProcessedTuples());
+        double sleepTime = 0;
+        long wakeups = 0;
+        for (FogDevice device : topology.getDevices(Tier.GATEWAY)) {
+            MeteringFogDevice gateway = (MeteringFogDevice) device;
+            gateway.settleSleep(clock);
+            sleepTime += gateway.getSleepTime();
+            wakeups += gateway.getWakeups();
+        }
+        double totalEnergy = 0;
+        long totalProcessed = 0;
+        for (Tier tier : Tier.values()) {
+            double tierEnergy = 0;
+            long tierProcessed = 0;
+            long tierUplinkBytes = 0;
+            for (FogDevice device : topology.getDevices(tier)) {
+                tierEnergy += device.getEnergyConsumption();
+                tierProcessed += ((MeteringFogDevice) device).getProcessedTuples();
+                tierUplinkBytes += ((MeteringFogDevice) device).getUplinkBytes();
+            }
+            System.out.println(SUMMARY_PREFIX + "uplinkBytes." + tier.name().toLowerCase() + "=" + tierUplinkBytes);
+            System.out.println(SUMMARY_PREFIX + "energy." + tier.name().toLowerCase() + "=" + tierEnergy);
+            System.out.println(SUMMARY_PREFIX + "tuplesPerJoule." + tier.name().toLowerCase() + "=" + (tierEnergy > 0 ? tierProcessed / tierEnergy : 0.0));
+            totalEnergy += tierEnergy;
+            totalProcessed += tierProcessed;
+        }
+        System.out.println(SUMMARY_PREFIX + "energy.total=" + totalEnergy);
+        System.out.println(SUMMARY_PREFIX + "tuplesPerJoule.total=" + (totalEnergy > 0 ? totalProcessed / totalEnergy : 0.0));
+        if (powerPolicy.isSleeping()) {
+            int gateways = topology.getDevices(Tier.GATEWAY).size();
+            System.out.println(SUMMARY_PREFIX + "sleep.wakeups=" + wakeups);
+            System.out.println(SUMMARY_PREFIX + "sleep.fraction=" + (clock > 0 && gateways > 0 ? sleepTime / (clock * gateways) : 0.0));
+        }
 
-            controller.submitApplication(application,
-                    (CLOUD) ? (new ModulePlacementMapping(fogDevices, application, moduleMapping))
-                            : (new ModulePlacementEdgewards(fogDevices, sensors, actuators, application, moduleMapping)));
+        if (automaticPlacement != null) {
+            for (Map.Entry<String, Map<Tier, Integer>> module : automaticPlacement.getPlacements().entrySet()) {
+                for (Map.Entry<Tier, Integer> tier : module.getValue().entrySet()) {
+                    System.out.println(SUMMARY_PREFIX + "placement." + module.getKey() + "." + tier.getKey().name().toLowerCase() + "=" + tier.getValue());
+                }
+            }
+        }
 
-            TimeKeeper.getInstance().setSimulationStartTime(Calendar.getInstance().getTimeInMillis());
+        if (batchingPolicy.isBatching()) {
+            long readings = 0;
+            long batches = 0;
+            long batchBytes = 0;
+            double holdingDelay = 0;
+            for (FogDevice device : fogDevices) {
+                MeteringFogDevice meteringDevice = (MeteringFogDevice) device;
+                readings += meteringDevice.getBatchedReadings();
+                batches += meteringDevice.getForwardedBatches();
+                batchBytes += meteringDevice.getForwardedBatchBytes();
+                holdingDelay += meteringDevice.getTotalHoldingDelay();
+            }
+            System.out.println(SUMMARY_PREFIX + "batching.readings=" + readings);
+            System.out.println(SUMMARY_PREFIX + "batching.batches=" + batches);
+            System.out.println(SUMMARY_PREFIX + "batching.bytes=" + batchBytes);
+            System.out.println(SUMMARY_PREFIX + "batching.meanHoldingDelay=" + (readings > 0 ? holdingDelay / readings : 0.0));
+        }
 
-            CloudSim.startSimulation();
+        if (convergenceMonitor != null) {
+            System.out.println(SUMMARY_PREFIX + "convergence.converged=" + convergenceMonitor.isConverged());
+            System.out.println(SUMMARY_PREFIX + "convergence.time=" + convergenceMonitor.getConvergenceTime());
+            System.out.println(SUMMARY_PREFIX + "convergence.batches=" + convergenceMonitor.getBatches());
+            for (ConvergenceMonitor.BatchMeans metric : convergenceMonitor.getMetrics()) {
+                String prefix = SUMMARY_PREFIX + "convergence." + metric.getName();
+                System.out.println(prefix + ".mean=" + metric.getMean());
+                System.out.println(prefix + ".halfWidth=" + metric.getHalfWidth());
+                System.out.println(prefix + ".batches=" + metric.getBatches());
+            }
+        }
 
-            CloudSim.stopSimulation();
+        if (admissionPolicy.isEnabled()) {
+            long offered = 0;
+            long dropped = 0;
+            long deferred = 0;
+            double wait = 0;
+            for (FogDevice device : fogDevices) {
+                MeteringFogDevice meteringDevice = (MeteringFogDevice) device;
+                offered += meteringDevice.getOfferedTuples();
+                dropped += meteringDevice.getDroppedTuples();
+                deferred += meteringDevice.getDeferredTuples();
+                wait += meteringDevice.getTotalAdmissionWait();
+            }
+            long admitted = offered - dropped;
+            System.out.println(SUMMARY_PREFIX + "admission.offered=" + offered);
+            System.out.println(SUMMARY_PREFIX + "admission.dropped=" + dropped);
+            System.out.println(SUMMARY_PREFIX + "admission.deferred=" + deferred);
+            System.out.println(SUMMARY_PREFIX + "admission.shedRate=" + (offered > 0 ? (double) dropped / offered : 0.0));
+            System.out.println(SUMMARY_PREFIX + "admission.meanWait=" + (admitted > 0 ? wait / admitted : 0.0));
+        }
+    }
 
-            Log.printLine("Advanced Metering Infrastructure Simulation Finished!");
-        } catch (Exception e) {
-            e.printStackTrace();
-            Log.printLine("Unwanted errors happen");
+    /**
+     * Prints the load of every proxy, the imbalance of the proxy loads and the contention on the proxy uplinks.
+     * A proxy's load is the number of tuples that arrived at it.
+     */
+    private static void printProxySummary() {
+        List<FogDevice> proxies = topology.getDevices(Tier.PROXY);
+        Map<Integer, Integer> sitesPerProxy = new HashMap<Integer, Integer>();
+        for (TopologyRegistry.Site site : topology.getSites()) {
+            Integer sites = sitesPerProxy.get(site.getRouter().getParentId());
+            sitesPerProxy.put(site.getRouter().getParentId(), sites == null ? 1 : sites + 1);
+        }
+        long totalLoad = 0;
+        long maxLoad = 0;
+        long uplinkTuples = 0;
+        long contendedTuples = 0;
+        for (FogDevice device : proxies) {
+            MeteringFogDevice proxy = (MeteringFogDevice) device;
+            Integer sites = sitesPerProxy.get(proxy.getId());
+            String prefix = SUMMARY_PREFIX + "proxy." + proxy.getName();
+            System.out.println(prefix + ".sites=" + (sites == null ? 0 : sites));
+            System.out.println(prefix + ".load=" + proxy.getDistinctArrivals());
+            System.out.println(prefix + ".uplinkContention=" + (proxy.getUplinkTuples() > 0
+                    ? (double) proxy.getContendedUplinkTuples() / proxy.getUplinkTuples() : 0.0));
+            totalLoad += proxy.getDistinctArrivals();
+            maxLoad = Math.max(maxLoad, proxy.getDistinctArrivals());
+            uplinkTuples += proxy.getUplinkTuples();
+            contendedTuples += proxy.getContendedUplinkTuples();
+        }
+        System.out.println(SUMMARY_PREFIX + "proxies.imbalance=" + (totalLoad > 0 ? (double) maxLoad * proxies.size() / totalLoad : 0.0));
+        System.out.println(SUMMARY_PREFIX + "proxies.uplinkContention=" + (uplinkTuples > 0 ? (double) contendedTuples / uplinkTuples : 0.0));
+        if (proxyFailover != null) {
+            System.out.println(SUMMARY_PREFIX + "proxies.reassignedSites=" + proxyFailover.getReassignedSites());
         }
     }
 
@@ -132,26 +689,34 @@ public class AdvanceMeteringInfrastructure {
      * @param userId
      * @param appId
      */
-    private static void createFogDevices(int userId, String appId) {
+    static void createFogDevices(int userId, String appId) {
         FogDevice cloud = createFogDevice("cloud", 44800, 40000, 100, 10000, 0, 0.01, 16 * 103, 16 * 83.25);
         cloud.setParentId(-1);
         fogDevices.add(cloud);
-        FogDevice proxy = createFogDevice("proxy-server", 2800, 4000, 10000, 10000, 1, 0.0, 107.339, 83.4333);
-        proxy.setParentId(cloud.getId());
-        proxy.setUplinkLatency(100); // latency of connection between proxy server and cloud is 100 ms
-        fogDevices.add(proxy);
+        topology.registerCloud(cloud);
+        List<FogDevice> proxies = new ArrayList<FogDevice>();
+        for (int k = 0; k < numOfProxies; k++) {
+            FogDevice proxy = createFogDevice(numOfProxies == 1 ? "proxy-server" : "proxy-server-" + k, 2800, 4000, 10000, 10000, 1, 0.0, 107.339, 83.4333);
+            proxy.setParentId(cloud.getId());
+            proxy.setUplinkLatency(100); // latency of connection between proxy server and cloud is 100 ms
+            fogDevices.add(proxy);
+            topology.registerProxy(proxy);
+            proxies.add(proxy);
+        }
+        siteAssignment = new ProxyAssignment(proxyAssignment, numOfProxies, proxyVirtualNodes, numOfSites);
         for (int i = 0; i < numOfSites; i++) {
-            addArea(i + "", userId, appId, proxy.getId());
+            addArea(i + "", userId, appId, proxies.get(siteAssignment.getProxy(i)).getId());
         }
     }
 
-    private static FogDevice addArea(String id, int userId, String appId, int parentId) {
+    static FogDevice addArea(String id, int userId, String appId, int parentId) {
         FogDevice router = createFogDevice("d-" + id, 2800, 4000, 10000, 10000, 2, 0.0, 107.339, 83.4333);
         fogDevices.add(router);
+        topology.registerRouter(id, router);
         router.setUplinkLatency(2); // latency of connection between router and proxy server is 2 ms
         for (int i = 0; i < numOfPulseMeterPerField; i++) {
             String mobileId = id + "-" + i;
-            FogDevice pulse = addPulse(mobileId, userId, appId, router.getId()); // adding a pulse to the physical topology
+            FogDevice pulse = addPulse(id, mobileId, userId, appId, router.getId()); // adding a pulse to the physical topology
             pulse.setUplinkLatency(2); // latency of connection between pulse and router is 2 ms
             fogDevices.add(pulse);
         }
@@ -159,14 +724,12 @@ public class AdvanceMeteringInfrastructure {
         FogDevice electricityDetection = addElectricityFogDevice(id, router.getId());
         electricityDetection.setUplinkLatency(2); // latency of connection between ELECTRICITY sensor and router is 2 ms
         electricityDetection.setParentId(router.getId());
-        for (int i = 0; i < numOfElectricitySensors; i++) {
-            String mobileId = id + "-" + i;
-            addElectricitySensor(mobileId, userId, appId, router.getId(), electricityDetection); // adding a ELECTRICITY sensor to the physical topology
-        }
+        addMeters("bs-" + id + "-", "ELECTRICITY", numOfElectricitySensors, userId, appId, electricityDetection); // adding the ELECTRICITY sensors to the physical topology
         fogDevices.add(electricityDetection);
 
-        Actuator alert = new Actuator("halm-" + id, userId, appId, "ELECTRICITY-MONITOR");
+        Actuator alert = new MonitoredActuator("halm-" + id, userId, appId, "ELECTRICITY-MONITOR", latencyRecorder);
         actuators.add(alert);
+        topology.registerActuator(id, alert);
         alert.setGatewayDeviceId(electricityDetection.getId());
         alert.setLatency(1.0);
 
@@ -186,13 +749,16 @@ public class AdvanceMeteringInfrastructure {
         return router;
     }
 
-    private static FogDevice addPulse(String id, int userId, String appId, int parentId) {
-        FogDevice pulse = createFogDevice("m-" + id, 500, 1000, 10000, 10000, 3, 0, 87.53, 82.44);
+    private static FogDevice addPulse(String siteId, String id, int userId, String appId, int parentId) {
+        FogDevice pulse = createGateway("m-" + id, 500, 1000, 3, 87.53, 82.44);
         pulse.setParentId(parentId);
-        Sensor sensor = new Sensor("s-" + id, "PULSE", userId, appId, new DeterministicDistribution(5)); // inter-transmission time of pulse (sensor) follows a deterministic distribution
+        topology.registerGateway(siteId, MeterType.PULSE, pulse);
+        Sensor sensor = new Sensor("s-" + id, "PULSE", userId, appId, createArrivalDistribution(MeterType.PULSE, "s-" + id));
         sensors.add(sensor);
-        Actuator pulseMonitor = new Actuator("pul-" + id, userId, appId, "PULSE_MONITOR");
+        topology.registerSensor(sensor, pulse);
+        Actuator pulseMonitor = new MonitoredActuator("pul-" + id, userId, appId, "PULSE_MONITOR", latencyRecorder);
         actuators.add(pulseMonitor);
+        topology.registerActuator(siteId, pulseMonitor);
         sensor.setGatewayDeviceId(pulse.getId());
         sensor.setLatency(1.0);  // latency of connection between pulse (sensor) and the parent device is 1 ms
         pulseMonitor.setGatewayDeviceId(pulse.getId());
@@ -201,48 +767,43 @@ public class AdvanceMeteringInfrastructure {
     }
 
     private static FogDevice addAnalogValueMeter(String id, int userId, String appId, int parentId) {
-        FogDevice analogValueMeter = createFogDevice("f-" + id, 2800, 4000, 10000, 10000, 3, 0.0, 107.339, 83.4333);
+        FogDevice analogValueMeter = createGateway("f-" + id, 2800, 4000, 3, 107.339, 83.4333);
         analogValueMeter.setParentId(parentId);
-        Sensor sensor;
-        for (int i = 0; i < analogValueMeterPerField; i++) {
-            sensor = new Sensor("fs-" + id, "ANALOG-VALUE", userId, appId, new DeterministicDistribution(5)); // inter-transmission time follows a deterministic distribution
-            sensor.setGatewayDeviceId(analogValueMeter.getId());
-            sensor.setLatency(1.0);  // latency of connection between analogValueMeter (sensor) and the parent device is 1 ms
-            sensors.add(sensor);
-        }
+        topology.registerGateway(id, MeterType.ANALOG_VALUE, analogValueMeter);
+        addMeters("fs-" + id + "-", "ANALOG-VALUE", analogValueMeterPerField, userId, appId, analogValueMeter);
 
-        Actuator analogValueActuator = new Actuator("imp-" + id, userId, appId, "ANALOG_VALUE_MONITOR");
+        Actuator analogValueActuator = new MonitoredActuator("imp-" + id, userId, appId, "ANALOG_VALUE_MONITOR", latencyRecorder);
         actuators.add(analogValueActuator);
+        topology.registerActuator(id, analogValueActuator);
         analogValueActuator.setGatewayDeviceId(analogValueMeter.getId());
         analogValueActuator.setLatency(1.0);  // latency of connection between analogValue alert actuator and the parent device is 1 ms
         return analogValueMeter;
     }
 
     private static FogDevice addElectricFrequencySensor(String id, int userId, String appId, int parentId) {
-        FogDevice frequencySensorDevice = createFogDevice("a-" + id, 2800, 4000, 10000, 10000, 3, 0.0, 107.339, 83.4333);
+        FogDevice frequencySensorDevice = createGateway("a-" + id, 2800, 4000, 3, 107.339, 83.4333);
         frequencySensorDevice.setParentId(parentId);
-        Sensor sensor;
-        for (int i = 0; i < frequencySensorPerFields; i++) {
-            sensor = new Sensor("as-" + id, "FREQUENCY", userId, appId, new DeterministicDistribution(5)); // inter-transmission time follows a deterministic distribution
-            sensor.setGatewayDeviceId(frequencySensorDevice.getId());
-            sensor.setLatency(1.0);  // latency of connection between frequencySensor sensor and the parent device is 1 ms
-            sensors.add(sensor);
-        }
+        topology.registerGateway(id, MeterType.FREQUENCY, frequencySensorDevice);
+        addMeters("as-" + id + "-", "FREQUENCY", frequencySensorPerFields, userId, appId, frequencySensorDevice);
 
-        Actuator frequencySensorActuator = new Actuator("prx-" + id, userId, appId, "FREQUENCY_MONITOR");
+        Actuator frequencySensorActuator = new MonitoredActuator("prx-" + id, userId, appId, "FREQUENCY_MONITOR", latencyRecorder);
         actuators.add(frequencySensorActuator);
+        topology.registerActuator(id, frequencySensorActuator);
         frequencySensorActuator.setGatewayDeviceId(frequencySensorDevice.getId());
         frequencySensorActuator.setLatency(1.0);  // latency of connection between frequencySensor control actuator and the parent device is 1 ms
         return frequencySensorDevice;
     }
 
     private static FogDevice addWaterSensor(String id, int userId, String appId, int parentId) {
-        FogDevice waterDevice = createFogDevice("p-" + id, 2800, 4000, 10000, 10000, 2, 0.0, 107.339, 83.4333);
+        FogDevice waterDevice = createGateway("p-" + id, 2800, 4000, 2, 107.339, 83.4333);
         waterDevice.setParentId(parentId);
-        Sensor sensor = new Sensor("ps-" + id, "WATER", userId, appId, new DeterministicDistribution(5)); // inter-transmission time follows a deterministic distribution
+        topology.registerGateway(id, MeterType.WATER, waterDevice);
+        Sensor sensor = new Sensor("ps-" + id, "WATER", userId, appId, createArrivalDistribution(MeterType.WATER, "ps-" + id));
         sensors.add(sensor);
-        Actuator waterActuator = new Actuator("tmp-" + id, userId, appId, "WATER_MONITOR");
+        topology.registerSensor(sensor, waterDevice);
+        Actuator waterActuator = new MonitoredActuator("tmp-" + id, userId, appId, "WATER_MONITOR", latencyRecorder);
         actuators.add(waterActuator);
+        topology.registerActuator(id, waterActuator);
         sensor.setGatewayDeviceId(waterDevice.getId());
         sensor.setLatency(1.0);  // latency of connection between water sensor and the parent device is 1 ms
         waterActuator.setGatewayDeviceId(waterDevice.getId());
@@ -251,16 +812,66 @@ public class AdvanceMeteringInfrastructure {
     }
 
     private static FogDevice addElectricityFogDevice(String id, int parentId) {
-        FogDevice electricitySensorDevice = createFogDevice("b-" + id, 2800, 4000, 10000, 10000, 3, 0.0, 107.339, 83.4333);
+        FogDevice electricitySensorDevice = createGateway("b-" + id, 2800, 4000, 3, 107.339, 83.4333);
         electricitySensorDevice.setParentId(parentId);
+        topology.registerGateway(id, MeterType.ELECTRICITY, electricitySensorDevice);
         return electricitySensorDevice;
     }
 
-    private static void addElectricitySensor(String id, int userId, String appId, int parentId, FogDevice electricitySensorDevice) {
-        Sensor sensor = new Sensor("bs-" + id, "ELECTRICITY", userId, appId, new DeterministicDistribution(5)); // inter-transmission time follows a deterministic distribution
+    /**
+     * Creates the inter-transmission time distribution of a meter from the arrival profile of its meter type.
+     * The meter name seeds the random parts of the profile, so every meter follows its own sample path and
+     * a scenario is reproducible.
+     */
+    private static Distribution createArrivalDistribution(MeterType type, String sensorName) {
+        String spec = meterArrivalProfiles.get(type);
+        try {
+            return ArrivalProfiles.create(spec != null ? spec : arrivalProfile, sensorTransmitInterval, sensorName.hashCode());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read the arrival trace of " + sensorName, e);
+        }
+    }
+
+    /**
+     * Attaches meters of one type to a gateway, one sensor per meter, or cohort sensors of up to
+     * {@code cohortSize} meters each when cohorts are enabled. Cohort members always report deterministically,
+     * arrival profiles apply to individually simulated meters only.
+     *
+     * @param namePrefix prefix of the sensor names, followed by the meter index or 'c' and the cohort index
+     * @param tupleType  type of the tuples the meters emit
+     * @param meters     number of meters
+     * @param gateway    device the meters are attached to
+     */
+    private static void addMeters(String namePrefix, String tupleType, int meters, int userId, String appId, FogDevice gateway) {
+        if (cohortSize <= 1) {
+            for (int i = 0; i < meters; i++) {
+                attachSensor(new Sensor(namePrefix + i, tupleType, userId, appId,
+                        createArrivalDistribution(MeterType.fromTupleType(tupleType), namePrefix + i)), gateway);
+            }
+            return;
+        }
+        for (int first = 0, cohort = 0; first < meters; first += cohortSize, cohort++) {
+            String name = namePrefix + "c" + cohort;
+            attachSensor(new CohortSensor(name, tupleType, userId, appId, Math.min(cohortSize, meters - first),
+                    sensorTransmitInterval, cohortJitter, cohortPhaseSlots, name.hashCode()), gateway);
+        }
+    }
+
+    private static void attachSensor(Sensor sensor, FogDevice gateway) {
+        sensor.setGatewayDeviceId(gateway.getId());
+        sensor.setLatency(1.0);  // latency of connection between a meter and its gateway is 1 ms
         sensors.add(sensor);
-        sensor.setGatewayDeviceId(electricitySensorDevice.getId());
-        sensor.setLatency(1.0);  // latency of connection between ELECTRICITY sensor and the parent device is 1 ms
+        topology.registerSensor(sensor, gateway);
+    }
+
+    /**
+     * Creates a meter gateway, slowed down and put to sleep as the power policy says.
+     */
+    private static FogDevice createGateway(String nodeName, long mips, int ram, int level, double busyPower, double idlePower) {
+        MeteringFogDevice gateway = (MeteringFogDevice) createFogDevice(nodeName, powerPolicy.getMips(mips), ram, 10000, 10000,
+                level, 0.0, powerPolicy.getBusyPower(busyPower, idlePower), idlePower);
+        gateway.setPowerPolicy(powerPolicy);
+        return gateway;
     }
 
     /**
@@ -318,18 +929,93 @@ public class AdvanceMeteringInfrastructure {
                 arch, os, vmm, host, time_zone, cost, costPerMem,
                 costPerStorage, costPerBw);
 
-        FogDevice fogdevice = null;
+        MeteringFogDevice fogdevice = null;
         try {
-            fogdevice = new FogDevice(nodeName, characteristics,
+            fogdevice = new MeteringFogDevice(nodeName, characteristics,
                     new AppModuleAllocationPolicy(hostList), storageList, 10, upBw, downBw, 0, ratePerMips);
         } catch (Exception e) {
             e.printStackTrace();
         }
 
         fogdevice.setLevel(level);
+        fogdevice.setBatchingPolicy(batchingPolicy);
         return fogdevice;
     }
 
+    /**
+     * Forwards the readings of every meter type from its processing module to the site roll-up, or straight to
+     * the analytics module without roll-ups. Upstream tuples carry the raw reading size; when the batching
+     * policy batches, the gateway folds them into batch tuples and spends the policy's aggregation cost per
+     * reading.
+     *
+     * @param application application to add the upstream edges to
+     */
+    private static void addUpstreamAggregation(Application application) {
+        String destination = rollupPolicy.isEnabled() ? RollupPolicy.SITE_ROLLUP : "smart-meter-analytics";
+        for (MeterType type : MeterType.values()) {
+            AppEdge sensorEdge = null;
+            for (AppEdge edge : application.getEdges()) {
+                if (edge.getSource().equals(type.getTupleType())) {
+                    sensorEdge = edge;
+                }
+            }
+            batchingPolicy.setRawReadingBytes(type, (long) sensorEdge.getTupleNwLength());
+            long readingBytes = batchingPolicy.getReadingBytes(type);
+            if (batchingPolicy.isBatching()) {
+                sensorEdge.setTupleCpuLength(sensorEdge.getTupleCpuLength() + batchingPolicy.getCpuPerReading()
+                        + upstreamEncoding.getEncodeCpu(readingBytes));
+            } else {
+                sensorEdge.setTupleCpuLength(sensorEdge.getTupleCpuLength() + upstreamEncoding.getEncodeCpu(readingBytes));
+            }
+            String batchTupleType = BatchingPolicy.getBatchTupleType(type);
+            application.addAppEdge(type.getModuleName(), destination,
+                    batchingPolicy.getUpstreamCpuPerReading() + upstreamEncoding.getDecodeCpu(readingBytes),
+                    upstreamEncoding.getEncodedBytes(readingBytes), batchTupleType, Tuple.UP, AppEdge.MODULE);
+            application.addTupleMapping(type.getModuleName(), type.getTupleType(), batchTupleType, new FractionalSelectivity(1.0));
+        }
+    }
+
+    /**
+     * Adds the roll-up stages between the meter modules and the analytics module: the site roll-up turns the
+     * forwarded readings into site roll-ups, the regional roll-up turns those into regional roll-ups and the
+     * analytics module consumes them.
+     *
+     * @param application application to add the roll-up modules to
+     */
+    private static void addRollups(Application application) {
+        application.addAppModule(RollupPolicy.SITE_ROLLUP, 10);
+        application.addAppModule(RollupPolicy.REGIONAL_ROLLUP, 10);
+
+        application.addAppEdge(RollupPolicy.SITE_ROLLUP, RollupPolicy.REGIONAL_ROLLUP, rollupPolicy.getRegionalCpu(),
+                rollupPolicy.getSiteRollupBytes(), RollupPolicy.SITE_ROLLUP_TUPLE, Tuple.UP, AppEdge.MODULE);
+        application.addAppEdge(RollupPolicy.REGIONAL_ROLLUP, "smart-meter-analytics", rollupPolicy.getAnalyticsCpu(),
+                rollupPolicy.getRegionalRollupBytes(), RollupPolicy.REGIONAL_ROLLUP_TUPLE, Tuple.UP, AppEdge.MODULE);
+
+        for (MeterType type : MeterType.values()) {
+            application.addTupleMapping(RollupPolicy.SITE_ROLLUP, BatchingPolicy.getBatchTupleType(type),
+                    RollupPolicy.SITE_ROLLUP_TUPLE, new FractionalSelectivity(rollupPolicy.getSiteSelectivity()));
+        }
+        application.addTupleMapping(RollupPolicy.REGIONAL_ROLLUP, RollupPolicy.SITE_ROLLUP_TUPLE,
+                RollupPolicy.REGIONAL_ROLLUP_TUPLE, new FractionalSelectivity(rollupPolicy.getRegionalSelectivity()));
+        application.addTupleMapping("smart-meter-analytics", RollupPolicy.REGIONAL_ROLLUP_TUPLE, "QUALITY_REPORT", new FractionalSelectivity(1.0));
+    }
+
+    /**
+     * Encodes the readings on the sensor edges: the tuples shrink and the device running the meter module
+     * spends the decoding CPU. Upstream sizes are derived from the raw readings, so this runs last.
+     */
+    private static void addSensorEncoding(Application application) {
+        for (MeterType type : MeterType.values()) {
+            for (AppEdge edge : application.getEdges()) {
+                if (edge.getEdgeType() == AppEdge.SENSOR && edge.getSource().equals(type.getTupleType())) {
+                    long rawBytes = (long) edge.getTupleNwLength();
+                    edge.setTupleNwLength(sensorEncoding.getEncodedBytes(rawBytes));
+                    edge.setTupleCpuLength(edge.getTupleCpuLength() + sensorEncoding.getDecodeCpu(rawBytes));
+                }
+            }
+        }
+    }
+
     /**
      * Function to create the Advanced Metering Infrastructure application in the DDF model.
      *
@@ -379,6 +1065,20 @@ public class AdvanceMeteringInfrastructure {
         application.addTupleMapping("analog-value-usage", "ANALOG-VALUE", "ANALOG_VALUE_DATA", new FractionalSelectivity(0.05));
         application.addTupleMapping("smart-meter-analytics", "ELECTRICITY_DATA", "QUALITY_REPORT", new FractionalSelectivity(1.0));
 
+        batchingPolicy.setEncoding(upstreamEncoding); // batches are encoded like single forwarded readings
+        if (rollupPolicy.isEnabled()) {
+            batchingPolicy.setUpstreamCpuPerReading(rollupPolicy.getSiteCpu()); // the site roll-up receives them
+        }
+        if (batchingPolicy.isEnabled() || rollupPolicy.isEnabled()) {
+            addUpstreamAggregation(application);
+        }
+        if (rollupPolicy.isEnabled()) {
+            addRollups(application);
+        }
+        if (sensorEncoding.isEnabled()) {
+            addSensorEncoding(application);
+        }
+
         /*
          * Defining application loops to monitor the latency.
          */
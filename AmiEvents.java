@@ -0,0 +1,15 @@
+package org.fog.test.perfeval;
+
+/**
+ * Tags of the simulation events introduced by the Advance Metering Infrastructure entities, kept clear of the
+ * ranges used by CloudSimTags and FogEvents.
+ *
+ * @author Narendra : x23429615
+ */
+public class AmiEvents {
+    private static final int BASE = 9000;
+    public static final int FLUSH_BATCH = BASE + 1;
+    public static final int PROXY_FAILURE = BASE + 2;
+    public static final int SAMPLE_RESOURCES = BASE + 3;
+    public static final int CHECK_CONVERGENCE = BASE + 4;
+}
@@ -0,0 +1,237 @@
+package org.fog.test.perfeval;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Parameter sweep driver for the Advance Metering Infrastructure simulation.
+ * <p>
+ * CloudSim, the TimeKeeper and the topology lists of {@link AdvanceMeteringInfrastructure} are process wide
+ * and the Controller exits the JVM when the simulation ends, so every point of the grid is run in its own
+ * forked JVM. Points are run concurrently on a fixed pool (one worker per core by default) and the
+ * {@code #AMI} summary lines of each worker are merged into a single CSV file.
+ * <p>
+ * Every argument with a comma separated value is a grid dimension, e.g.
+ * {@code sites=30,300,3000 pulseMeters=8,16 cloud=false,true sensorInterval=5,10 workers=32 out=sweep.csv}.
+ *
+ * @author Narendra : x23429615
+ */
+public class AmiSweepRunner {
+
+    private static final String WORKERS = "workers";
+    private static final String OUTPUT = "out";
+    private static final String WORKER_HEAP = "workerHeap";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, List<String>> grid = new LinkedHashMap<String, List<String>>();
+        int workers = Runtime.getRuntime().availableProcessors();
+        String output = "ami-sweep.csv";
+        String workerHeap = null;
+
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            String key = arg.substring(0, separator).trim();
+            String value = arg.substring(separator + 1).trim();
+            if (key.equals(WORKERS)) {
+                workers = Integer.parseInt(value);
+            } else if (key.equals(OUTPUT)) {
+                output = value;
+            } else if (key.equals(WORKER_HEAP)) {
+                workerHeap = value;
+            } else {
+                List<String> values = new ArrayList<String>();
+                for (String v : value.split(",")) {
+                    values.add(v.trim());
+                }
+                grid.put(key, values);
+            }
+        }
+
+        List<Map<String, String>> points = expand(grid);
+        System.out.println("Running " + points.size() + " scenario(s) on " + workers + " worker(s)");
+        List<PointResult> results = runPoints(points, workers, workerHeap);
+        writeCsv(new File(output), results);
+        System.out.println("Sweep results written to " + output);
+    }
+
+    /**
+     * Expands the grid into the cartesian product of all its dimensions.
+     */
+    static List<Map<String, String>> expand(Map<String, List<String>> grid) {
+        List<Map<String, String>> points = new ArrayList<Map<String, String>>();
+        points.add(new LinkedHashMap<String, String>());
+        for (Map.Entry<String, List<String>> dimension : grid.entrySet()) {
+            List<Map<String, String>> expanded = new ArrayList<Map<String, String>>();
+            for (Map<String, String> point : points) {
+                for (String value : dimension.getValue()) {
+                    Map<String, String> next = new LinkedHashMap<String, String>(point);
+                    next.put(dimension.getKey(), value);
+                    expanded.add(next);
+                }
+            }
+            points = expanded;
+        }
+        return points;
+    }
+
+    /**
+     * Runs every point in a forked JVM, at most {@code workers} at a time, and returns the results in the
+     * order of {@code points}.
+     */
+    static List<PointResult> runPoints(List<Map<String, String>> points, int workers, final String workerHeap)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, workers));
+        try {
+            List<Future<PointResult>> futures = new ArrayList<Future<PointResult>>();
+            for (final Map<String, String> point : points) {
+                futures.add(executor.submit(new Callable<PointResult>() {
+                    @Override
+                    public PointResult call() throws Exception {
+                        return runWorker(point, workerHeap);
+                    }
+                }));
+            }
+            List<PointResult> results = new ArrayList<PointResult>();
+            for (Future<PointResult> future : futures) {
+                PointResult result = future.get();
+                System.out.println(result.parameters + " -> " + (result.succeeded() ? "ok" : "failed (exit " + result.exitCode + ")")
+                        + " in " + result.wallMillis + " ms");
+                results.add(result);
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static PointResult runWorker(Map<String, String> point, String workerHeap) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<String>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        if (workerHeap != null) {
+            command.add("-Xmx" + workerHeap);
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(AdvanceMeteringInfrastructure.class.getName());
+        for (Map.Entry<String, String> parameter : point.entrySet()) {
+            command.add(parameter.getKey() + "=" + parameter.getValue());
+        }
+        command.add("summary=true");
+
+        PointResult result = new PointResult(point);
+        long start = System.currentTimeMillis();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(AdvanceMeteringInfrastructure.SUMMARY_PREFIX)) {
+                    String metric = line.substring(AdvanceMeteringInfrastructure.SUMMARY_PREFIX.length());
+                    int separator = metric.indexOf('=');
+                    if (separator > 0) {
+                        result.metrics.put(metric.substring(0, separator), metric.substring(separator + 1));
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        result.exitCode = process.waitFor();
+        result.wallMillis = System.currentTimeMillis() - start;
+        return result;
+    }
+
+    /**
+     * Writes one row per point: its parameters, the worker status and every metric reported by any worker.
+     */
+    static void writeCsv(File file, List<PointResult> results) throws IOException {
+        Set<String> parameterColumns = new LinkedHashSet<String>();
+        Set<String> metricColumns = new TreeSet<String>();
+        for (PointResult result : results) {
+            parameterColumns.addAll(result.parameters.keySet());
+            metricColumns.addAll(result.metrics.keySet());
+        }
+
+        PrintWriter writer = new PrintWriter(file, "UTF-8");
+        try {
+            List<String> header = new ArrayList<String>(parameterColumns);
+            header.add("exitCode");
+            header.add("wallMillis");
+            header.addAll(metricColumns);
+            writer.println(toCsvRow(header));
+            for (PointResult result : results) {
+                List<String> row = new ArrayList<String>();
+                for (String column : parameterColumns) {
+                    row.add(result.parameters.get(column));
+                }
+                row.add(String.valueOf(result.exitCode));
+                row.add(String.valueOf(result.wallMillis));
+                for (String column : metricColumns) {
+                    row.add(result.metrics.get(column));
+                }
+                writer.println(toCsvRow(row));
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static String toCsvRow(List<String> values) {
+        StringBuilder row = new StringBuilder();
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                row.append(',');
+            }
+            String value = values.get(i) == null ? "" : values.get(i);
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0) {
+                value = '"' + value.replace("\"", "\"\"") + '"';
+            }
+            row.append(value);
+        }
+        return row.toString();
+    }
+
+    /**
+     * Outcome of one forked simulation run.
+     */
+    static class PointResult {
+        final Map<String, String> parameters;
+        final Map<String, String> metrics = new LinkedHashMap<String, String>();
+        int exitCode = -1;
+        long wallMillis;
+
+        PointResult(Map<String, String> parameters) {
+            this.parameters = parameters;
+        }
+
+        /**
+         * @return true if the run ended normally, a failed run exits with a non-zero status even though the
+         * shutdown hook still prints the metrics gathered so far
+         */
+        boolean succeeded() {
+            return exitCode == 0 && !metrics.isEmpty();
+        }
+
+        double metric(String key) {
+            String value = metrics.get(key);
+            return value == null || value.isEmpty() ? Double.NaN : Double.parseDouble(value);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.fog.test.perfeval;
+
+import org.fog.utils.distribution.DeterministicDistribution;
+import org.fog.utils.distribution.Distribution;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Creates the inter-transmission time distribution of a meter from an arrival profile spec: the profile name
+ * followed by optional {@code /key=value} parameters. Unset parameters default to values derived from the
+ * meter's reporting interval. A {@code file} parameter takes the rest of the spec, so it comes last and its
+ * path may contain slashes.
+ * <ul>
+ * <li>{@code deterministic}: every interval</li>
+ * <li>{@code diurnal/amplitude=0.5/day=86400/peak=43200}: {@link DiurnalDistribution}</li>
+ * <li>{@code burst/period=3600/width=10/first=3600}: {@link BurstDistribution}</li>
+ * <li>{@code mmpp/busyInterval=0.5/calmDuration=1000/busyDuration=100}: {@link MarkovModulatedDistribution},
+ * calm at the reporting interval</li>
+ * <li>{@code trace/file=traces/interarrivals.txt}: {@link TraceDistribution}</li>
+ * </ul>
+ *
+ * @author Narendra : x23429615
+ */
+public class ArrivalProfiles {
+
+    private ArrivalProfiles() {
+    }
+
+    /**
+     * @param spec     arrival profile spec
+     * @param interval reporting interval of the meter
+     * @param seed     seed of the random parts of the profile, distinct per meter
+     */
+    public static Distribution create(String spec, double interval, long seed) throws IOException {
+        int end = spec.indexOf('/');
+        String profile = (end < 0 ? spec : spec.substring(0, end)).trim().toLowerCase();
+        Map<String, String> parameters = new HashMap<String, String>();
+        while (end >= 0) {
+            int start = end + 1;
+            end = spec.indexOf('/', start);
+            if (spec.substring(start).trim().startsWith("file=")) {
+                end = -1;
+            }
+            String part = end < 0 ? spec.substring(start) : spec.substring(start, end);
+            int separator = part.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value in arrival profile " + spec + " but got: " + part);
+            }
+            parameters.put(part.substring(0, separator).trim(), part.substring(separator + 1).trim());
+        }
+
+        if (profile.equals("deterministic")) {
+            return new DeterministicDistribution(interval);
+        }
+        if (profile.equals("diurnal")) {
+            double day = get(parameters, "day", 86400);
+            return new DiurnalDistribution(interval, get(parameters, "amplitude", 0.5), day, get(parameters, "peak", day / 2));
+        }
+        if (profile.equals("burst")) {
+            double period = get(parameters, "period", 3600);
+            return new BurstDistribution(interval, period, get(parameters, "width", interval),
+                    get(parameters, "first", period), seed);
+        }
+        if (profile.equals("mmpp")) {
+            return new MarkovModulatedDistribution(interval, get(parameters, "busyInterval", interval / 10),
+                    get(parameters, "calmDuration", 1000 * interval), get(parameters, "busyDuration", 100 * interval), seed);
+        }
+        if (profile.equals("trace")) {
+            String file = parameters.get("file");
+            if (file == null) {
+                throw new IllegalArgumentException("Arrival profile " + spec + " needs a file");
+            }
+            return new TraceDistribution(file, (int) seed);
+        }
+        throw new IllegalArgumentException("Unknown arrival profile " + profile);
+    }
+
+    private static double get(Map<String, String> parameters, String key, double defaultValue) {
+        String value = parameters.get(key);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+}
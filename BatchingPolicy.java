@@ -0,0 +1,161 @@
+package org.fog.test.perfeval;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration of the edge aggregation stage that forwards meter readings from the gateways to the
+ * analytics module.
+ * <p>
+ * With {@link Mode#OFF} readings are not forwarded upstream at all. {@link Mode#SINGLE} forwards every reading
+ * as its own tuple of reading size, which is the baseline the batching modes are compared against.
+ * {@link Mode#COUNT} forwards one batch per {@code batchSize} readings and {@link Mode#TIME} one batch per
+ * {@code window} of simulated time. A batch of {@code n} readings is {@code headerBytes + n * readingBytes}
+ * bytes long, where a reading is as long as the tuples its meter type sends, or {@code bytesPerReading} in every
+ * mode if that is set. The batch costs {@code n * upstreamCpuPerReading} MI upstream; folding a reading into
+ * the batch costs the gateway {@code cpuPerReading} MI on top of processing the reading. With a {@link PayloadEncoding}, the
+ * batch is encoded before it is forwarded.
+ *
+ * @author Narendra : x23429615
+ */
+public class BatchingPolicy {
+
+    public enum Mode {
+        OFF,
+        SINGLE,
+        COUNT,
+        TIME
+    }
+
+    private Mode mode = Mode.OFF;
+    private int batchSize = 10;
+    private double window = 50;
+    private double cpuPerReading = 20;
+    private double upstreamCpuPerReading = 100;
+    private long headerBytes = 100;
+    private long bytesPerReading = 0; // 0 keeps the raw reading size of every meter type
+    private final Map<String, Long> rawReadingBytes = new HashMap<String, Long>();
+    private PayloadEncoding encoding = new PayloadEncoding();
+
+    /**
+     * @return upstream tuple type carrying the readings of the given meter type
+     */
+    public static String getBatchTupleType(MeterType type) {
+        return type.getTupleType() + "_BATCH";
+    }
+
+    public boolean isEnabled() {
+        return mode != Mode.OFF;
+    }
+
+    public boolean isBatching() {
+        return mode == Mode.COUNT || mode == Mode.TIME;
+    }
+
+    /**
+     * Records the size of the readings the sensors of a meter type send.
+     */
+    public void setRawReadingBytes(MeterType type, long bytes) {
+        rawReadingBytes.put(getBatchTupleType(type), bytes);
+    }
+
+    /**
+     * @return size of one reading forwarded upstream, alone or in a batch
+     */
+    public long getReadingBytes(MeterType type) {
+        return getReadingBytes(getBatchTupleType(type));
+    }
+
+    private long getReadingBytes(String batchTupleType) {
+        if (bytesPerReading > 0) {
+            return bytesPerReading;
+        }
+        Long raw = rawReadingBytes.get(batchTupleType);
+        if (raw == null) {
+            throw new IllegalStateException("No reading size known for " + batchTupleType);
+        }
+        return raw;
+    }
+
+    public long getBatchBytes(String batchTupleType, int readings) {
+        return encoding.getEncodedBytes(headerBytes + readings * getReadingBytes(batchTupleType));
+    }
+
+    public long getBatchCpuLength(String batchTupleType, int readings) {
+        return (long) (readings * upstreamCpuPerReading
+                + encoding.getDecodeCpu(headerBytes + readings * getReadingBytes(batchTupleType)));
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        this.batchSize = batchSize;
+    }
+
+    public double getWindow() {
+        return window;
+    }
+
+    public void setWindow(double window) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("Batch window must be positive");
+        }
+        this.window = window;
+    }
+
+    public double getCpuPerReading() {
+        return cpuPerReading;
+    }
+
+    public void setCpuPerReading(double cpuPerReading) {
+        this.cpuPerReading = cpuPerReading;
+    }
+
+    public double getUpstreamCpuPerReading() {
+        return upstreamCpuPerReading;
+    }
+
+    public void setUpstreamCpuPerReading(double upstreamCpuPerReading) {
+        this.upstreamCpuPerReading = upstreamCpuPerReading;
+    }
+
+    public long getHeaderBytes() {
+        return headerBytes;
+    }
+
+    public void setHeaderBytes(long headerBytes) {
+        this.headerBytes = headerBytes;
+    }
+
+    /**
+     * @return encoding of the batches, applied to their raw size
+     */
+    public PayloadEncoding getEncoding() {
+        return encoding;
+    }
+
+    public void setEncoding(PayloadEncoding encoding) {
+        this.encoding = encoding;
+    }
+
+    public long getBytesPerReading() {
+        return bytesPerReading;
+    }
+
+    public void setBytesPerReading(long bytesPerReading) {
+        this.bytesPerReading = bytesPerReading;
+    }
+}
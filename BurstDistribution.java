@@ -0,0 +1,58 @@
+package org.fog.test.perfeval;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.fog.utils.distribution.Distribution;
+
+import java.util.Random;
+
+/**
+ * Regular reporting with synchronized read storms: between storms a meter reports every {@code interval},
+ * and at the start of every {@code burstPeriod} all meters report within {@code burstWidth} of each other, as
+ * in top-of-the-hour reads or reconnection floods after an outage. The first storm is at {@code firstBurst}.
+ *
+ * @author Narendra : x23429615
+ */
+public class BurstDistribution extends Distribution {
+
+    private final double interval;
+    private final double burstPeriod;
+    private final double burstWidth;
+    private final double firstBurst;
+    private final Random jitter;
+
+    public BurstDistribution(double interval, double burstPeriod, double burstWidth, double firstBurst, long seed) {
+        if (burstPeriod <= 0 || burstWidth < 0 || burstWidth >= burstPeriod) {
+            throw new IllegalArgumentException("Burst width must be in [0, burst period)");
+        }
+        this.interval = interval;
+        this.burstPeriod = burstPeriod;
+        this.burstWidth = burstWidth;
+        this.firstBurst = firstBurst;
+        this.jitter = new Random(seed);
+    }
+
+    @Override
+    public double getNextValue() {
+        double now = CloudSim.clock();
+        double nextBurst = firstBurst;
+        if (now >= firstBurst) {
+            nextBurst = firstBurst + (Math.floor((now - firstBurst) / burstPeriod) + 1) * burstPeriod;
+        }
+        if (now + interval < nextBurst) {
+            return interval;
+        }
+        return nextBurst - now + jitter.nextDouble() * burstWidth;
+    }
+
+    @Override
+    public int getDistributionType() {
+        return -1;
+    }
+
+    @Override
+    public double getMeanInterTransmitTime() {
+        // storms cut the interval in progress short once per burst period
+        double reportsPerPeriod = Math.ceil(burstPeriod / interval);
+        return burstPeriod / reportsPerPeriod;
+    }
+}
@@ -0,0 +1,340 @@
+package org.fog.test.perfeval;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.FutureQueue;
+import org.cloudbus.cloudsim.core.SimEvent;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Calendar queue (Brown, 1988) replacement of the sorted set behind CloudSim's future event list.
+ * <p>
+ * Events are hashed by time into a ring of buckets, each {@code width} long and holding a time-ordered list,
+ * so an insert of an event later than those already queued, which is what the periodic meters produce, takes
+ * constant time instead of a tree descent. The ring doubles or halves with the number of events and its
+ * width is re-estimated from the spacing of the earliest events. List nodes are pooled.
+ * <p>
+ * The order is the one of {@link FutureQueue}: by time, then by insertion order, with the events added by
+ * {@link #addEventFirst} before the others of their time. The iterator walks the calendar lazily in that
+ * order, as CloudSim only ever looks at the first events of the list.
+ *
+ * @author Narendra : x23429615
+ */
+public class CalendarFutureQueue extends FutureQueue {
+
+    private static final int MIN_BUCKETS = 16;
+    private static final int WIDTH_SAMPLE = 25;
+
+    private Node[] heads = new Node[MIN_BUCKETS];
+    private Node[] tails = new Node[MIN_BUCKETS];
+    private double width = 1.0;
+    private int size;
+    private long lowestBucket = Long.MAX_VALUE; // no event is in an earlier virtual bucket
+    private long serial;
+    private long firstSerial = Long.MIN_VALUE;
+    private int modCount;
+    private Node pool;
+
+    /**
+     * Replaces the future event list of the initialised CloudSim run by a calendar queue, moving the events
+     * already scheduled to it. Has to be called after {@code CloudSim.init} and before the simulation starts.
+     */
+    public static void install() throws ReflectiveOperationException {
+        Field field = CloudSim.class.getDeclaredField("future");
+        field.setAccessible(true);
+        FutureQueue current = (FutureQueue) field.get(null);
+        if (current instanceof CalendarFutureQueue) {
+            return;
+        }
+        CalendarFutureQueue queue = new CalendarFutureQueue();
+        if (current != null) {
+            Iterator<SimEvent> events = current.iterator();
+            while (events.hasNext()) {
+                queue.addEvent(events.next());
+            }
+        }
+        field.set(null, queue);
+    }
+
+    @Override
+    public void addEvent(SimEvent newEvent) {
+        insert(newEvent, serial++);
+    }
+
+    @Override
+    public void addEventFirst(SimEvent newEvent) {
+        insert(newEvent, firstSerial++);
+    }
+
+    @Override
+    public Iterator<SimEvent> iterator() {
+        return new InOrderIterator();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean remove(SimEvent event) {
+        boolean removed = removeEvent(event);
+        if (removed) {
+            shrinkIfSparse();
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean removeAll(Collection<SimEvent> events) {
+        boolean removed = false;
+        for (SimEvent event : events) {
+            removed |= removeEvent(event);
+        }
+        if (removed) {
+            shrinkIfSparse();
+        }
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        heads = new Node[MIN_BUCKETS];
+        tails = new Node[MIN_BUCKETS];
+        size = 0;
+        lowestBucket = Long.MAX_VALUE;
+        pool = null;
+        modCount++;
+    }
+
+    private void insert(SimEvent event, long order) {
+        Node node = pool;
+        if (node != null) {
+            pool = node.next;
+        } else {
+            node = new Node();
+        }
+        node.event = event;
+        node.time = event.eventTime();
+        node.order = order;
+        link(node);
+        size++;
+        modCount++;
+        if (size > 2 * heads.length) {
+            resize(2 * heads.length);
+        }
+    }
+
+    /**
+     * Inserts the node into the list of its bucket, searching from the tail since events mostly arrive in
+     * time order.
+     */
+    private void link(Node node) {
+        node.bucket = (long) Math.floor(node.time / width);
+        if (node.bucket < lowestBucket) {
+            lowestBucket = node.bucket;
+        }
+        int index = (int) (node.bucket & (heads.length - 1));
+        Node after = tails[index];
+        while (after != null && node.before(after)) {
+            after = after.previous;
+        }
+        node.previous = after;
+        node.next = after == null ? heads[index] : after.next;
+        if (node.next == null) {
+            tails[index] = node;
+        } else {
+            node.next.previous = node;
+        }
+        if (after == null) {
+            heads[index] = node;
+        } else {
+            after.next = node;
+        }
+    }
+
+    private void unlink(Node node) {
+        int index = (int) (node.bucket & (heads.length - 1));
+        if (node.previous == null) {
+            heads[index] = node.next;
+        } else {
+            node.previous.next = node.next;
+        }
+        if (node.next == null) {
+            tails[index] = node.previous;
+        } else {
+            node.next.previous = node.previous;
+        }
+    }
+
+    private boolean removeEvent(SimEvent event) {
+        long bucket = (long) Math.floor(event.eventTime() / width);
+        for (Node node = heads[(int) (bucket & (heads.length - 1))]; node != null; node = node.next) {
+            if (node.event == event) {
+                release(node);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void release(Node node) {
+        unlink(node);
+        size--;
+        modCount++;
+        node.event = null;
+        node.previous = null;
+        node.next = pool;
+        pool = node;
+        if (size == 0) {
+            lowestBucket = Long.MAX_VALUE;
+        }
+    }
+
+    private void shrinkIfSparse() {
+        if (heads.length > MIN_BUCKETS && size < heads.length / 2) {
+            resize(heads.length / 2);
+        }
+    }
+
+    /**
+     * Rebuilds the calendar with the given number of buckets and a width of three times the mean spacing of
+     * the earliest distinct event times.
+     */
+    private void resize(int buckets) {
+        List<Node> nodes = new ArrayList<Node>(size);
+        InOrderIterator events = new InOrderIterator();
+        while (events.hasNext()) {
+            events.next();
+            nodes.add(events.lastReturned);
+        }
+        double spacing = 0;
+        int gaps = 0;
+        for (int i = 1; i < nodes.size() && i <= WIDTH_SAMPLE; i++) {
+            double gap = nodes.get(i).time - nodes.get(i - 1).time;
+            if (gap > 0) {
+                spacing += gap;
+                gaps++;
+            }
+        }
+        if (gaps > 0) {
+            width = 3 * spacing / gaps;
+        }
+
+        heads = new Node[buckets];
+        tails = new Node[buckets];
+        lowestBucket = Long.MAX_VALUE;
+        for (Node node : nodes) {
+            node.previous = null;
+            node.next = null;
+            link(node);
+        }
+        modCount++;
+    }
+
+    /**
+     * @return first node of the bucket list holding the virtual bucket, skipping the earlier years
+     */
+    private Node firstOf(long bucket) {
+        Node node = heads[(int) (bucket & (heads.length - 1))];
+        while (node != null && node.bucket < bucket) {
+            node = node.next;
+        }
+        return node;
+    }
+
+    /**
+     * @return earliest virtual bucket after the given one holding an event
+     */
+    private long nextOccupiedBucket(long bucket) {
+        long next = Long.MAX_VALUE;
+        for (Node head : heads) {
+            for (Node node = head; node != null; node = node.next) {
+                if (node.bucket > bucket) {
+                    next = Math.min(next, node.bucket);
+                    break;
+                }
+            }
+        }
+        return next;
+    }
+
+    private static class Node {
+        SimEvent event;
+        double time;
+        long order;
+        long bucket; // time divided by the bucket width, the bucket index is its remainder
+        Node previous;
+        Node next;
+
+        boolean before(Node other) {
+            return time < other.time || (time == other.time && order < other.order);
+        }
+    }
+
+    /**
+     * Walks the calendar one virtual bucket at a time from the lowest occupied one, jumping ahead when a
+     * whole year of buckets is empty.
+     */
+    private class InOrderIterator implements Iterator<SimEvent> {
+
+        private int expectedModCount = modCount;
+        private int remaining = size;
+        private long bucket = lowestBucket;
+        private Node candidate = size > 0 ? firstOf(lowestBucket) : null;
+        private Node lastReturned;
+        private boolean first = true;
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public SimEvent next() {
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (remaining == 0) {
+                throw new NoSuchElementException();
+            }
+            int emptyBuckets = 0;
+            while (candidate == null || candidate.bucket != bucket) {
+                if (++emptyBuckets >= heads.length) {
+                    bucket = nextOccupiedBucket(bucket);
+                    emptyBuckets = 0;
+                } else {
+                    bucket++;
+                }
+                candidate = firstOf(bucket);
+            }
+            if (first) {
+                lowestBucket = bucket;
+                first = false;
+            }
+            lastReturned = candidate;
+            candidate = candidate.next;
+            remaining--;
+            return lastReturned.event;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            release(lastReturned);
+            lastReturned = null;
+            expectedModCount = modCount;
+        }
+    }
+}
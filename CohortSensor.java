@@ -0,0 +1,109 @@
+package org.fog.test.perfeval;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.fog.entities.Sensor;
+import org.fog.utils.FogEvents;
+import org.fog.utils.distribution.DeterministicDistribution;
+
+import java.util.Random;
+
+/**
+ * Sensor entity standing for a cohort of statistically identical meters attached to the same gateway.
+ * <p>
+ * Every meter still transmits its own tuple once per period, so loop latencies and network usage are those
+ * of the individual meters, but the cohort needs one entity and one pending emit event instead of one per
+ * meter. The phase of each meter is drawn uniformly from {@code [0, jitter * period)} and rounded down to one
+ * of {@code phaseSlots} slots of the period; meters sharing a slot transmit on the same event. Without
+ * jitter all meters transmit together, exactly like the per-meter model.
+ * <p>
+ * The transmit distribution reported to the placement is the aggregate one, one tuple every
+ * {@code period / size}, so load estimates match those of {@code size} separate sensors.
+ *
+ * @author Narendra : x23429615
+ */
+public class CohortSensor extends Sensor {
+
+    private final int size;
+    private final double period;
+    private final double[] slotOffsets;
+    private final int[] slotMeters;
+    private int nextSlot;
+    private double periodStart = -1;
+
+    /**
+     * @param size       number of meters in the cohort
+     * @param period     inter-transmission time of every meter
+     * @param jitter     fraction of the period the meter phases are spread over, in {@code [0, 1]}
+     * @param phaseSlots number of slots the period is divided into for the phases
+     * @param seed       seed of the phase draw
+     */
+    public CohortSensor(String name, String tupleType, int userId, String appId, int size, double period,
+                        double jitter, int phaseSlots, long seed) {
+        super(name, tupleType, userId, appId, new DeterministicDistribution(period / size));
+        if (size < 1 || phaseSlots < 1 || jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException("Invalid cohort " + name + ": size " + size + ", jitter " + jitter
+                    + ", phase slots " + phaseSlots);
+        }
+        this.size = size;
+        this.period = period;
+
+        int[] metersPerSlot = new int[phaseSlots];
+        Random random = new Random(seed);
+        for (int meter = 0; meter < size; meter++) {
+            metersPerSlot[(int) (random.nextDouble() * jitter * phaseSlots)]++;
+        }
+        int usedSlots = 0;
+        for (int count : metersPerSlot) {
+            if (count > 0) {
+                usedSlots++;
+            }
+        }
+        slotOffsets = new double[usedSlots];
+        slotMeters = new int[usedSlots];
+        for (int slot = 0, used = 0; slot < phaseSlots; slot++) {
+            if (metersPerSlot[slot] > 0) {
+                slotOffsets[used] = slot * period / phaseSlots;
+                slotMeters[used++] = metersPerSlot[slot];
+            }
+        }
+    }
+
+    @Override
+    public void processEvent(SimEvent ev) {
+        if (ev.getTag() != FogEvents.EMIT_TUPLE) {
+            super.processEvent(ev);
+            return;
+        }
+        if (periodStart < 0) {
+            // the first emit event comes one aggregate interval after start, the first period begins with the start
+            periodStart = CloudSim.clock() - period / size + period;
+            send(getId(), periodStart + slotOffsets[0] - CloudSim.clock(), FogEvents.EMIT_TUPLE);
+            return;
+        }
+        for (int meter = 0; meter < slotMeters[nextSlot]; meter++) {
+            transmit();
+        }
+        nextSlot++;
+        if (nextSlot == slotOffsets.length) {
+            nextSlot = 0;
+            periodStart += period;
+        }
+        send(getId(), Math.max(0, periodStart + slotOffsets[nextSlot] - CloudSim.clock()), FogEvents.EMIT_TUPLE);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public double getPeriod() {
+        return period;
+    }
+
+    /**
+     * @return number of emit events per period
+     */
+    public int getEventsPerPeriod() {
+        return slotOffsets.length;
+    }
+}
@@ -0,0 +1,81 @@
+package org.fog.test.perfeval;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Checks the cohort sensor model against the per-meter model on a small scenario.
+ * <p>
+ * The same scenario is run twice in forked JVMs, once with one sensor per meter and once with cohorts of
+ * {@code cohortSize} meters, and every loop latency, network usage and energy metric of the cohort run must be
+ * within {@code tolerance} (relative) of the per-meter run. Other arguments are passed to both runs, e.g.
+ * {@code sites=2 electricitySensors=40 cohortSize=20 horizon=2000 tolerance=0.02}. The process exits with 1 if
+ * any metric is out of tolerance.
+ *
+ * @author Narendra : x23429615
+ */
+public class CohortValidation {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> scenario = new LinkedHashMap<String, String>();
+        scenario.put("sites", "2");
+        scenario.put("horizon", "2000");
+        String cohortSize = "10";
+        double tolerance = 0.02;
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            String key = arg.substring(0, separator).trim();
+            String value = arg.substring(separator + 1).trim();
+            if (key.equals("cohortSize")) {
+                cohortSize = value;
+            } else if (key.equals("tolerance")) {
+                tolerance = Double.parseDouble(value);
+            } else {
+                scenario.put(key, value);
+            }
+        }
+
+        Map<String, String> perMeter = new LinkedHashMap<String, String>(scenario);
+        perMeter.put("cohortSize", "1");
+        Map<String, String> cohort = new LinkedHashMap<String, String>(scenario);
+        cohort.put("cohortSize", cohortSize);
+        List<Map<String, String>> points = new ArrayList<Map<String, String>>();
+        points.add(perMeter);
+        points.add(cohort);
+        List<AmiSweepRunner.PointResult> results = AmiSweepRunner.runPoints(points, 2, null);
+
+        AmiSweepRunner.PointResult expected = results.get(0);
+        AmiSweepRunner.PointResult actual = results.get(1);
+        if (!expected.succeeded() || !actual.succeeded()) {
+            System.out.println("FAILED: a validation run did not complete");
+            System.exit(1);
+        }
+
+        boolean passed = true;
+        for (String metric : new TreeSet<String>(expected.metrics.keySet())) {
+            if (!isValidated(metric)) {
+                continue;
+            }
+            double reference = expected.metric(metric);
+            double value = actual.metric(metric);
+            double error = reference == 0 ? Math.abs(value) : Math.abs(value - reference) / Math.abs(reference);
+            boolean ok = !Double.isNaN(error) && error <= tolerance;
+            passed &= ok;
+            System.out.println(String.format("%-40s per-meter %14.4f  cohort %14.4f  error %7.3f%%  %s",
+                    metric, reference, value, 100 * error, ok ? "ok" : "OUT OF TOLERANCE"));
+        }
+        System.out.println(passed ? "PASSED" : "FAILED");
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static boolean isValidated(String metric) {
+        return (metric.startsWith("loop.") && !metric.endsWith(".max")) || metric.equals("networkUsage")
+                || metric.startsWith("energy.");
+    }
+}
@@ -0,0 +1,212 @@
+package org.fog.test.perfeval;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.fog.entities.FogDevice;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stops the run once the loop latencies and the CPU utilisation of every tier have reached a steady state.
+ * <p>
+ * The run is cut into batches of {@code batchLength} simulated time. Each tracked metric is estimated by the
+ * method of batch means: the mean latency of the tuples of a loop completed within a batch, or the mean of ten
+ * utilisation samples of a tier taken during the batch. The first {@code warmupBatches} are discarded. Once
+ * there are {@code minBatches} batches and the 95% confidence interval of every metric is narrower than
+ * {@code tolerance} of its mean, or than {@code absoluteTolerance} for means near zero such as the utilisation
+ * of an idle tier, on either side, the simulation is terminated. Runs that do not converge end at
+ * the simulation horizon as before.
+ *
+ * @author Narendra : x23429615
+ */
+public class ConvergenceMonitor extends SimEntity {
+
+    private static final int UTILISATION_SAMPLES = 10;
+    private static final double[] T_QUANTILES = {12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262,
+            2.228, 2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086, 2.080, 2.074, 2.069, 2.064,
+            2.060, 2.056, 2.052, 2.048, 2.045, 2.042}; // two-sided 95% quantiles of Student's t, 1 to 30 degrees of freedom
+
+    private final LoopLatencyRecorder latencyRecorder;
+    private final TopologyRegistry topology;
+    private final double batchLength;
+    private final double tolerance;
+    private final double absoluteTolerance;
+    private final int warmupBatches;
+    private final int minBatches;
+    private final List<BatchMeans> metrics = new ArrayList<BatchMeans>();
+    private final long[] lastCounts;
+    private final double[] lastSums;
+    private final double[] utilisationSums = new double[Tier.values().length];
+    private int samplesInBatch;
+    private int batches;
+    private boolean converged;
+    private double convergenceTime = -1;
+
+    public ConvergenceMonitor(LoopLatencyRecorder latencyRecorder, TopologyRegistry topology, double batchLength,
+                              double tolerance, double absoluteTolerance, int warmupBatches, int minBatches) {
+        super("convergence-monitor");
+        if (batchLength <= 0 || tolerance <= 0) {
+            throw new IllegalArgumentException("Batch length and tolerance must be positive");
+        }
+        if (absoluteTolerance < 0) {
+            throw new IllegalArgumentException("Absolute tolerance must not be negative");
+        }
+        this.latencyRecorder = latencyRecorder;
+        this.topology = topology;
+        this.batchLength = batchLength;
+        this.tolerance = tolerance;
+        this.absoluteTolerance = absoluteTolerance;
+        this.warmupBatches = warmupBatches;
+        this.minBatches = Math.max(2, minBatches);
+        for (int i = 0; i < latencyRecorder.getLoopCount(); i++) {
+            metrics.add(new BatchMeans("loop." + latencyRecorder.getLoopName(i)));
+        }
+        for (Tier tier : Tier.values()) {
+            metrics.add(new BatchMeans("utilisation." + tier.name().toLowerCase()));
+        }
+        lastCounts = new long[latencyRecorder.getLoopCount()];
+        lastSums = new double[latencyRecorder.getLoopCount()];
+    }
+
+    @Override
+    public void startEntity() {
+        schedule(getId(), batchLength / UTILISATION_SAMPLES, AmiEvents.CHECK_CONVERGENCE);
+    }
+
+    @Override
+    public void processEvent(SimEvent ev) {
+        if (ev.getTag() != AmiEvents.CHECK_CONVERGENCE || converged) {
+            return;
+        }
+        sampleUtilisation();
+        if (++samplesInBatch == UTILISATION_SAMPLES) {
+            closeBatch();
+            if (hasConverged()) {
+                converged = true;
+                convergenceTime = CloudSim.clock();
+                CloudSim.abruptallyTerminate(); // the run loop stops after this tick; terminateSimulation() alone does not stop it
+                return;
+            }
+        }
+        schedule(getId(), batchLength / UTILISATION_SAMPLES, AmiEvents.CHECK_CONVERGENCE);
+    }
+
+    @Override
+    public void shutdownEntity() {
+    }
+
+    private void sampleUtilisation() {
+        for (Tier tier : Tier.values()) {
+            List<FogDevice> devices = topology.getDevices(tier);
+            double utilisation = 0;
+            for (FogDevice device : devices) {
+                utilisation += device.getHost().getUtilizationOfCpu();
+            }
+            utilisationSums[tier.ordinal()] += devices.isEmpty() ? 0 : utilisation / devices.size();
+        }
+    }
+
+    private void closeBatch() {
+        batches++;
+        boolean warmup = batches <= warmupBatches;
+        for (int i = 0; i < lastCounts.length; i++) {
+            LatencyHistogram histogram = latencyRecorder.getHistogram(i);
+            long count = histogram.getCount() - lastCounts[i];
+            if (!warmup && count > 0) {
+                metrics.get(i).add((histogram.getSum() - lastSums[i]) / count);
+            }
+            lastCounts[i] = histogram.getCount();
+            lastSums[i] = histogram.getSum();
+        }
+        for (Tier tier : Tier.values()) {
+            if (!warmup) {
+                metrics.get(lastCounts.length + tier.ordinal()).add(utilisationSums[tier.ordinal()] / UTILISATION_SAMPLES);
+            }
+            utilisationSums[tier.ordinal()] = 0;
+        }
+        samplesInBatch = 0;
+    }
+
+    /**
+     * @return true if every metric has converged; loops that never completed a tuple are not tracked
+     */
+    private boolean hasConverged() {
+        for (int i = 0; i < metrics.size(); i++) {
+            BatchMeans metric = metrics.get(i);
+            if (i < lastCounts.length && lastCounts[i] == 0) {
+                continue;
+            }
+            double allowed = Math.max(tolerance * Math.abs(metric.getMean()), absoluteTolerance);
+            if (metric.getBatches() < minBatches || metric.getHalfWidth() > allowed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isConverged() {
+        return converged;
+    }
+
+    /**
+     * @return simulated time the steady state was detected at, -1 if it was not
+     */
+    public double getConvergenceTime() {
+        return convergenceTime;
+    }
+
+    public int getBatches() {
+        return batches;
+    }
+
+    public List<BatchMeans> getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Batch means of one metric, with Welford's running mean and variance.
+     */
+    public static class BatchMeans {
+        private final String name;
+        private int batches;
+        private double mean;
+        private double squaredDeviations;
+
+        BatchMeans(String name) {
+            this.name = name;
+        }
+
+        void add(double batchMean) {
+            batches++;
+            double delta = batchMean - mean;
+            mean += delta / batches;
+            squaredDeviations += delta * (batchMean - mean);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getBatches() {
+            return batches;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        /**
+         * @return half width of the 95% confidence interval of the mean, infinite with fewer than two batches
+         */
+        public double getHalfWidth() {
+            if (batches < 2) {
+                return Double.POSITIVE_INFINITY;
+            }
+            int degrees = batches - 1;
+            double t = degrees <= T_QUANTILES.length ? T_QUANTILES[degrees - 1] : 1.96;
+            return t * Math.sqrt(squaredDeviations / degrees / batches);
+        }
+    }
+}
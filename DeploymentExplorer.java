@@ -0,0 +1,180 @@
+package org.fog.test.perfeval;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Explores per-module deployments of the meter processing modules and reports the Pareto frontier of the
+ * worst loop p99 latency, the total energy and the WAN traffic between the proxies and the cloud.
+ * <p>
+ * Every combination of the allowed tiers that places no module below its producer is evaluated when there are
+ * at most {@code budget} of them; otherwise the lowest and highest of them and a random sample of the others
+ * are. Deployments are run in
+ * parallel in forked JVMs by {@link AmiSweepRunner}. Arguments other than {@code tiers}, {@code budget},
+ * {@code seed}, {@code workers} and {@code out} are passed to every run, e.g.
+ * {@code tiers=gateway,router,proxy,cloud budget=200 sites=30 horizon=5000 workers=32 out=deployments.csv}.
+ *
+ * @author Narendra : x23429615
+ */
+public class DeploymentExplorer {
+
+    public static void main(String[] args) throws Exception {
+        List<Tier> tiers = new ArrayList<Tier>();
+        Collections.addAll(tiers, Tier.values());
+        int budget = 256;
+        long seed = 1;
+        int workers = Runtime.getRuntime().availableProcessors();
+        String output = "ami-deployments.csv";
+        Map<String, String> scenario = new LinkedHashMap<String, String>();
+
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            String key = arg.substring(0, separator).trim();
+            String value = arg.substring(separator + 1).trim();
+            if (key.equals("tiers")) {
+                tiers.clear();
+                for (String tier : value.split(",")) {
+                    tiers.add(Tier.valueOf(tier.trim().toUpperCase()));
+                }
+            } else if (key.equals("budget")) {
+                budget = Integer.parseInt(value);
+            } else if (key.equals("seed")) {
+                seed = Long.parseLong(value);
+            } else if (key.equals("workers")) {
+                workers = Integer.parseInt(value);
+            } else if (key.equals("out")) {
+                output = value;
+            } else {
+                scenario.put(key, value);
+            }
+        }
+
+        boolean rollups = Boolean.parseBoolean(scenario.get("rollup"));
+        List<DeploymentSpec> deployments = enumerate(tiers, rollups, budget, new Random(seed));
+        List<Map<String, String>> points = new ArrayList<Map<String, String>>();
+        for (DeploymentSpec deployment : deployments) {
+            Map<String, String> point = new LinkedHashMap<String, String>(scenario);
+            point.put("deployment", deployment.toString());
+            points.add(point);
+        }
+        System.out.println("Evaluating " + points.size() + " deployment(s) on " + workers + " worker(s)");
+        List<AmiSweepRunner.PointResult> results = AmiSweepRunner.runPoints(points, workers, null);
+
+        List<double[]> objectives = new ArrayList<double[]>();
+        for (AmiSweepRunner.PointResult result : results) {
+            double[] objective = getObjectives(result);
+            objectives.add(objective);
+            result.metrics.put("objective.p99", String.valueOf(objective[0]));
+            result.metrics.put("objective.energy", String.valueOf(objective[1]));
+            result.metrics.put("objective.wanBytes", String.valueOf(objective[2]));
+        }
+        System.out.println("Pareto frontier (worst loop p99, total energy, WAN bytes):");
+        for (int i = 0; i < results.size(); i++) {
+            boolean pareto = results.get(i).succeeded() && !isDominated(i, objectives);
+            results.get(i).metrics.put("pareto", String.valueOf(pareto));
+            if (pareto) {
+                double[] objective = objectives.get(i);
+                System.out.println(String.format("  %12.3f %16.1f %14.0f  %s", objective[0], objective[1], objective[2],
+                        results.get(i).parameters.get("deployment")));
+            }
+        }
+        AmiSweepRunner.writeCsv(new File(output), results);
+        System.out.println("Deployment results written to " + output);
+    }
+
+    /**
+     * @return every monotone combination of the tiers for the meter modules, or a sample of {@code budget} of
+     * them
+     */
+    static List<DeploymentSpec> enumerate(List<Tier> tiers, boolean rollups, int budget, Random random) {
+        MeterType[] types = MeterType.values();
+        long combinations = 1;
+        for (int i = 0; i < types.length; i++) {
+            combinations *= tiers.size();
+        }
+
+        Set<List<Tier>> assignments = new LinkedHashSet<List<Tier>>();
+        for (long index = 0; index < combinations; index++) {
+            List<Tier> assignment = new ArrayList<Tier>();
+            long rest = index;
+            for (int i = 0; i < types.length; i++) {
+                assignment.add(tiers.get((int) (rest % tiers.size())));
+                rest /= tiers.size();
+            }
+            assignments.add(assignment);
+        }
+        List<DeploymentSpec> deployments = new ArrayList<DeploymentSpec>();
+        for (List<Tier> assignment : assignments) {
+            DeploymentSpec deployment = new DeploymentSpec();
+            for (int i = 0; i < types.length; i++) {
+                deployment.setTier(types[i].getModuleName(), assignment.get(i));
+            }
+            if (deployment.isMonotone(rollups)) {
+                deployments.add(deployment);
+            }
+        }
+        if (deployments.size() <= budget) {
+            return deployments;
+        }
+
+        List<DeploymentSpec> sample = new ArrayList<DeploymentSpec>();
+        sample.add(deployments.remove(0));
+        sample.add(deployments.remove(deployments.size() - 1));
+        Collections.shuffle(deployments, random);
+        sample.addAll(deployments.subList(0, Math.max(0, budget - 2)));
+        return sample;
+    }
+
+    /**
+     * @return worst loop p99 latency, total energy and WAN bytes of a run, infinite if the run failed
+     */
+    private static double[] getObjectives(AmiSweepRunner.PointResult result) {
+        double[] objectives = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+        if (!result.succeeded()) {
+            return objectives;
+        }
+        double worstP99 = 0;
+        for (String metric : result.metrics.keySet()) {
+            if (metric.startsWith("loop.") && metric.endsWith(".p99")) {
+                worstP99 = Math.max(worstP99, result.metric(metric));
+            }
+        }
+        objectives[0] = worstP99;
+        objectives[1] = result.metric("energy.total");
+        objectives[2] = result.metric("wanBytes");
+        return objectives;
+    }
+
+    private static boolean isDominated(int index, List<double[]> objectives) {
+        double[] candidate = objectives.get(index);
+        for (int other = 0; other < objectives.size(); other++) {
+            if (other != index && dominates(objectives.get(other), candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean dominates(double[] a, double[] b) {
+        boolean strictlyBetter = false;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] > b[i]) {
+                return false;
+            }
+            if (a[i] < b[i]) {
+                strictlyBetter = true;
+            }
+        }
+        return strictlyBetter;
+    }
+}
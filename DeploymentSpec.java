@@ -0,0 +1,182 @@
+package org.fog.test.perfeval;
+
+import org.fog.entities.FogDevice;
+import org.fog.placement.ModuleMapping;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tier each application module is deployed on.
+ * <p>
+ * A meter processing module on the {@link Tier#GATEWAY} tier runs on every gateway of its meter type, on the
+ * {@link Tier#ROUTER} tier on the router of every site with such gateways and on the {@link Tier#PROXY} tier
+ * on the proxy those routers hang off. Other modules run on every device of their tier. Modules without a
+ * tier stay on the tier of the edge deployment: meter modules on the gateways, the site roll-up on the
+ * routers, the regional roll-up on the proxy and the rest in the cloud.
+ * <p>
+ * A module cannot be deployed below the modules whose tuples it consumes, as the tuples only travel up to it:
+ * with roll-ups the meter modules feed the site roll-up, which feeds the regional roll-up, which feeds the
+ * analytics; without them the meter modules feed the analytics.
+ * <p>
+ * The text form lists {@code module:tier} pairs separated by semicolons, e.g.
+ * {@code electricity-usage:router;pulse-monitoring:gateway}.
+ *
+ * @author Narendra : x23429615
+ */
+public class DeploymentSpec {
+
+    private static final String ANALYTICS = "smart-meter-analytics";
+
+    private static final Map<String, MeterType> METER_MODULES = new LinkedHashMap<String, MeterType>();
+    private static final Map<String, Tier> DEFAULT_TIERS = new LinkedHashMap<String, Tier>();
+
+    static {
+        for (MeterType type : MeterType.values()) {
+            METER_MODULES.put(type.getModuleName(), type);
+            DEFAULT_TIERS.put(type.getModuleName(), Tier.GATEWAY);
+        }
+        DEFAULT_TIERS.put(RollupPolicy.SITE_ROLLUP, Tier.ROUTER);
+        DEFAULT_TIERS.put(RollupPolicy.REGIONAL_ROLLUP, Tier.PROXY);
+    }
+
+    private final Map<String, Tier> tiers = new LinkedHashMap<String, Tier>();
+
+    public static DeploymentSpec parse(String text) {
+        DeploymentSpec spec = new DeploymentSpec();
+        for (String pair : text.split(";")) {
+            if (pair.trim().isEmpty()) {
+                continue;
+            }
+            int separator = pair.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected module:tier but got: " + pair);
+            }
+            spec.setTier(pair.substring(0, separator).trim(), Tier.valueOf(pair.substring(separator + 1).trim().toUpperCase()));
+        }
+        return spec;
+    }
+
+    /**
+     * @return deployment of every module in the cloud
+     */
+    public static DeploymentSpec allInCloud(Iterable<String> moduleNames) {
+        DeploymentSpec spec = new DeploymentSpec();
+        for (String moduleName : moduleNames) {
+            spec.setTier(moduleName, Tier.CLOUD);
+        }
+        return spec;
+    }
+
+    public DeploymentSpec setTier(String moduleName, Tier tier) {
+        if (tier == Tier.GATEWAY && !METER_MODULES.containsKey(moduleName)) {
+            throw new IllegalArgumentException("Only meter modules can be deployed on the gateways, not " + moduleName);
+        }
+        tiers.put(moduleName, tier);
+        return this;
+    }
+
+    public Tier getTier(String moduleName) {
+        Tier tier = tiers.get(moduleName);
+        if (tier != null) {
+            return tier;
+        }
+        tier = DEFAULT_TIERS.get(moduleName);
+        return tier != null ? tier : Tier.CLOUD;
+    }
+
+    /**
+     * @return true if no module is deployed on a lower tier than a module it consumes the tuples of
+     */
+    public boolean isMonotone(boolean rollups) {
+        return findInversion(rollups) == null;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a module is deployed on a lower tier than a module it consumes the
+     *                                  tuples of
+     */
+    public void validate(boolean rollups) {
+        String inversion = findInversion(rollups);
+        if (inversion != null) {
+            throw new IllegalArgumentException(inversion);
+        }
+    }
+
+    private String findInversion(boolean rollups) {
+        List<String> stages = rollups ? Arrays.asList(RollupPolicy.SITE_ROLLUP, RollupPolicy.REGIONAL_ROLLUP, ANALYTICS)
+                : Collections.singletonList(ANALYTICS);
+        for (String meterModule : METER_MODULES.keySet()) {
+            String inversion = checkOrder(meterModule, stages.get(0));
+            if (inversion != null) {
+                return inversion;
+            }
+        }
+        for (int i = 1; i < stages.size(); i++) {
+            String inversion = checkOrder(stages.get(i - 1), stages.get(i));
+            if (inversion != null) {
+                return inversion;
+            }
+        }
+        return null;
+    }
+
+    private String checkOrder(String producer, String consumer) {
+        if (getTier(consumer).ordinal() >= getTier(producer).ordinal()) {
+            return null;
+        }
+        return consumer + " on the " + getTier(consumer).name().toLowerCase() + " tier is below its producer "
+                + producer + " on the " + getTier(producer).name().toLowerCase() + " tier";
+    }
+
+    /**
+     * Maps every given module to the devices of its tier in the topology.
+     */
+    public ModuleMapping createModuleMapping(TopologyRegistry topology, Iterable<String> moduleNames) {
+        ModuleMapping moduleMapping = ModuleMapping.createModuleMapping();
+        for (String moduleName : moduleNames) {
+            for (FogDevice device : getDevices(topology, moduleName)) {
+                moduleMapping.addModuleToDevice(moduleName, device.getName());
+            }
+        }
+        return moduleMapping;
+    }
+
+    /**
+     * @return devices of the topology the module runs on
+     */
+    Set<FogDevice> getDevices(TopologyRegistry topology, String moduleName) {
+        Tier tier = getTier(moduleName);
+        MeterType type = METER_MODULES.get(moduleName);
+        Set<FogDevice> devices = new LinkedHashSet<FogDevice>();
+        if (type == null || tier == Tier.CLOUD) {
+            devices.addAll(topology.getDevices(tier));
+            return devices;
+        }
+        for (FogDevice gateway : topology.getGateways(type)) {
+            FogDevice device = gateway;
+            for (Tier level = Tier.GATEWAY; level != tier; level = Tier.values()[level.ordinal() + 1]) {
+                device = topology.getParent(device);
+            }
+            devices.add(device);
+        }
+        return devices;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Tier> entry : tiers.entrySet()) {
+            if (text.length() > 0) {
+                text.append(';');
+            }
+            text.append(entry.getKey()).append(':').append(entry.getValue().name().toLowerCase());
+        }
+        return text.toString();
+    }
+}
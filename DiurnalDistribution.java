@@ -0,0 +1,48 @@
+package org.fog.test.perfeval;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.fog.utils.distribution.Distribution;
+
+/**
+ * Inter-transmission times following a daily load curve: the reporting rate is
+ * {@code (1 + amplitude * cos(2 * pi * (t - peakTime) / dayLength)) / meanInterval} at simulated time
+ * {@code t}, so a meter reports most often at the peak and least often half a day later.
+ *
+ * @author Narendra : x23429615
+ */
+public class DiurnalDistribution extends Distribution {
+
+    private final double meanInterval;
+    private final double amplitude;
+    private final double dayLength;
+    private final double peakTime;
+
+    /**
+     * @param amplitude relative swing of the rate around its mean, in {@code [0, 1)}
+     */
+    public DiurnalDistribution(double meanInterval, double amplitude, double dayLength, double peakTime) {
+        if (amplitude < 0 || amplitude >= 1) {
+            throw new IllegalArgumentException("Diurnal amplitude must be in [0, 1) but was " + amplitude);
+        }
+        this.meanInterval = meanInterval;
+        this.amplitude = amplitude;
+        this.dayLength = dayLength;
+        this.peakTime = peakTime;
+    }
+
+    @Override
+    public double getNextValue() {
+        double phase = 2 * Math.PI * (CloudSim.clock() - peakTime) / dayLength;
+        return meanInterval / (1 + amplitude * Math.cos(phase));
+    }
+
+    @Override
+    public int getDistributionType() {
+        return -1;
+    }
+
+    @Override
+    public double getMeanInterTransmitTime() {
+        return meanInterval;
+    }
+}
@@ -0,0 +1,277 @@
+package org.fog.test.perfeval;
+
+import org.apache.commons.math3.util.Pair;
+import org.fog.application.AppEdge;
+import org.fog.application.AppModule;
+import org.fog.application.Application;
+import org.fog.application.selectivity.SelectivityModel;
+import org.fog.entities.FogDevice;
+import org.fog.entities.Sensor;
+import org.fog.placement.ModuleMapping;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Chooses the device each meter processing module runs on for the readings of each gateway, from the
+ * gateway itself up through its router and proxy to the cloud.
+ * <p>
+ * For every gateway the demand of its sensors (arrival rate times the CPU length of the sensor edge) is
+ * placed on the candidate device with the lowest estimated tail latency of the loop, among the devices whose
+ * committed load stays below {@code utilisationCap} of their MIPS; if none has room the cloud takes it. The
+ * latency estimate adds the link latencies and transfer times of the sensor and actuator tuples along the
+ * path, the service time and an approximate 99th percentile of the queueing delay of an M/D/1 queue at the
+ * device's utilisation. Gateways with the largest demand are placed first.
+ * <p>
+ * A tuple sent up from a gateway executes at the first device on its path that hosts the module, so the walk
+ * up from a gateway stops at the first device already hosting it, and placing the module on a device moves
+ * there the load of the gateways below it that were served further up, which counts against its cap.
+ *
+ * @author Narendra : x23429615
+ */
+public class LatencyAwarePlacement {
+
+    private static final double SENSOR_LATENCY = 1.0;
+    private static final double ACTUATOR_LATENCY = 1.0;
+    private static final double TAIL_PROBABILITY = 0.01;
+
+    private final TopologyRegistry topology;
+    private final Application application;
+    private final double utilisationCap;
+    private final Map<Integer, Double> committedLoad = new HashMap<Integer, Double>();
+    private final Set<String> mapped = new HashSet<String>();
+    private final List<Demand> placed = new ArrayList<Demand>();
+    private final Map<String, Map<Tier, Integer>> placements = new HashMap<String, Map<Tier, Integer>>();
+
+    /**
+     * @param utilisationCap largest fraction of a device's MIPS the placement may commit, e.g. 0.8
+     */
+    public LatencyAwarePlacement(TopologyRegistry topology, Application application, double utilisationCap) {
+        this.topology = topology;
+        this.application = application;
+        this.utilisationCap = utilisationCap;
+    }
+
+    /**
+     * Places the processing module of every meter type and returns the resulting mapping. The other modules
+     * are mapped as in the edge deployment.
+     */
+    public ModuleMapping createModuleMapping() {
+        ModuleMapping moduleMapping = ModuleMapping.createModuleMapping();
+        mapped.clear();
+        placed.clear();
+        committedLoad.clear();
+        placements.clear();
+
+        List<Demand> demands = new ArrayList<Demand>();
+        Set<String> meterModules = new HashSet<String>();
+        for (MeterType type : MeterType.values()) {
+            meterModules.add(type.getModuleName());
+            LoopCost cost = getLoopCost(type);
+            for (FogDevice gateway : topology.getGateways(type)) {
+                double rate = 0;
+                for (Sensor sensor : topology.getSensors(gateway.getId())) {
+                    rate += 1.0 / sensor.getTransmitDistribution().getMeanInterTransmitTime();
+                }
+                if (rate > 0) {
+                    demands.add(new Demand(type, gateway, cost, rate));
+                }
+            }
+        }
+        Collections.sort(demands, new Comparator<Demand>() {
+            @Override
+            public int compare(Demand a, Demand b) {
+                return Double.compare(b.getLoad(), a.getLoad());
+            }
+        });
+
+        for (Demand demand : demands) {
+            FogDevice host = selectHost(demand);
+            commit(host, demand.getLoad());
+            demand.host = host;
+            if (mapped.add(demand.type.getModuleName() + "@" + host.getName())) {
+                moduleMapping.addModuleToDevice(demand.type.getModuleName(), host.getName());
+                for (Demand other : placed) {
+                    if (other.type == demand.type && isAbove(other.host, host, other.gateway)) {
+                        commit(other.host, -other.getLoad());
+                        commit(host, other.getLoad());
+                        other.host = host;
+                    }
+                }
+            }
+            placed.add(demand);
+        }
+        for (Demand demand : placed) {
+            recordPlacement(demand.type.getModuleName(), topology.getTier(demand.host.getId()));
+        }
+
+        DeploymentSpec edgeDeployment = new DeploymentSpec();
+        for (AppModule module : application.getModules()) {
+            if (!meterModules.contains(module.getName())) {
+                for (FogDevice device : edgeDeployment.getDevices(topology, module.getName())) {
+                    moduleMapping.addModuleToDevice(module.getName(), device.getName());
+                }
+            }
+        }
+        return moduleMapping;
+    }
+
+    private FogDevice selectHost(Demand demand) {
+        FogDevice best = null;
+        double bestLatency = Double.MAX_VALUE;
+        double pathLatency = SENSOR_LATENCY + ACTUATOR_LATENCY;
+        FogDevice candidate = demand.gateway;
+        FogDevice child = null;
+        while (candidate != null) {
+            if (child != null) {
+                pathLatency += 2 * child.getUplinkLatency()
+                        + demand.cost.sensorBytes / child.getUplinkBandwidth()
+                        + demand.cost.actuatorBytes / candidate.getDownlinkBandwidth();
+            }
+            double mips = candidate.getHost().getTotalMips();
+            Double load = committedLoad.get(candidate.getId());
+            double utilisation = ((load == null ? 0 : load) + getCapturedLoad(candidate, demand.type)
+                    + demand.getLoad()) / mips;
+            if (utilisation <= utilisationCap) {
+                double latency = pathLatency + getTailResponseTime(demand.cost.cpuLength / mips, utilisation);
+                if (latency < bestLatency) {
+                    best = candidate;
+                    bestLatency = latency;
+                }
+            }
+            if (isHosting(candidate, demand.type)) {
+                return best != null ? best : candidate;
+            }
+            child = candidate;
+            candidate = topology.getParent(candidate);
+        }
+        return best != null ? best : topology.getCloud();
+    }
+
+    /**
+     * @return load of the gateways of the meter type served above the device whose readings pass through it,
+     * which moves to the device once it hosts the module
+     */
+    private double getCapturedLoad(FogDevice device, MeterType type) {
+        double load = 0;
+        for (Demand other : placed) {
+            if (other.type == type && isAbove(other.host, device, other.gateway)) {
+                load += other.getLoad();
+            }
+        }
+        return load;
+    }
+
+    private boolean isHosting(FogDevice device, MeterType type) {
+        return mapped.contains(type.getModuleName() + "@" + device.getName());
+    }
+
+    /**
+     * @return true if the path up from the gateway passes through the device before it reaches the host
+     */
+    private boolean isAbove(FogDevice host, FogDevice device, FogDevice gateway) {
+        for (FogDevice hop = gateway; hop != null && hop != host; hop = topology.getParent(hop)) {
+            if (hop == device) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void commit(FogDevice device, double load) {
+        Double committed = committedLoad.get(device.getId());
+        committedLoad.put(device.getId(), (committed == null ? 0 : committed) + load);
+    }
+
+    /**
+     * Approximate 99th percentile of the response time of an M/D/1 queue: the waiting time is taken to be zero
+     * with probability {@code 1 - utilisation} and exponential with the mean of the Pollaczek-Khinchine formula
+     * otherwise.
+     */
+    static double getTailResponseTime(double serviceTime, double utilisation) {
+        if (utilisation <= TAIL_PROBABILITY) {
+            return serviceTime;
+        }
+        double meanWait = utilisation * serviceTime / (2 * (1 - utilisation));
+        return serviceTime + meanWait / utilisation * Math.log(utilisation / TAIL_PROBABILITY);
+    }
+
+    /**
+     * Reads the CPU and network cost of the loop of a meter type from the edges of the application.
+     */
+    private LoopCost getLoopCost(MeterType type) {
+        LoopCost cost = new LoopCost();
+        for (AppEdge edge : application.getEdges()) {
+            if (edge.getSource().equals(type.getTupleType()) && edge.getDestination().equals(type.getModuleName())) {
+                cost.cpuLength = edge.getTupleCpuLength();
+                cost.sensorBytes = edge.getTupleNwLength();
+            }
+            if (edge.getSource().equals(type.getModuleName()) && edge.getDestination().equals(type.getActuatorType())) {
+                cost.actuatorBytes = edge.getTupleNwLength() * getSelectivity(type, edge.getTupleType());
+            }
+        }
+        return cost;
+    }
+
+    private double getSelectivity(MeterType type, String outputTupleType) {
+        AppModule module = application.getModuleByName(type.getModuleName());
+        for (Map.Entry<Pair<String, String>, SelectivityModel> entry : module.getSelectivityMap().entrySet()) {
+            if (entry.getKey().getFirst().equals(type.getTupleType()) && entry.getKey().getSecond().equals(outputTupleType)) {
+                return entry.getValue().getMeanRate();
+            }
+        }
+        return 1.0;
+    }
+
+    private void recordPlacement(String moduleName, Tier tier) {
+        Map<Tier, Integer> counts = placements.get(moduleName);
+        if (counts == null) {
+            counts = new EnumMap<Tier, Integer>(Tier.class);
+            placements.put(moduleName, counts);
+        }
+        Integer count = counts.get(tier);
+        counts.put(tier, count == null ? 1 : count + 1);
+    }
+
+    /**
+     * @return for every module, the number of gateways whose readings it processes on each tier
+     */
+    public Map<String, Map<Tier, Integer>> getPlacements() {
+        return placements;
+    }
+
+    private static class LoopCost {
+        double cpuLength;
+        double sensorBytes;
+        double actuatorBytes;
+    }
+
+    private static class Demand {
+        final MeterType type;
+        final FogDevice gateway;
+        final LoopCost cost;
+        final double rate;
+        FogDevice host;
+
+        Demand(MeterType type, FogDevice gateway, LoopCost cost, double rate) {
+            this.type = type;
+            this.gateway = gateway;
+            this.cost = cost;
+            this.rate = rate;
+        }
+
+        /**
+         * @return MIPS needed to process the readings of the gateway
+         */
+        double getLoad() {
+            return rate * cost.cpuLength;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.fog.test.perfeval;
+
+import java.util.Arrays;
+
+/**
+ * Fixed memory histogram of latencies with logarithmically sized buckets.
+ * <p>
+ * Bucket {@code i} covers {@code [LOWEST * GROWTH^i, LOWEST * GROWTH^(i+1))}, so every reported quantile is
+ * within {@code GROWTH - 1} (2%) of the recorded value. Values below the lowest bucket are counted in the first
+ * bucket and values above the highest one in the last bucket; the exact maximum is tracked separately.
+ * Recording never allocates.
+ *
+ * @author Narendra : x23429615
+ */
+public class LatencyHistogram {
+
+    private static final double LOWEST = 0.001;
+    private static final double GROWTH = 1.02;
+    private static final double LOG_GROWTH = Math.log(GROWTH);
+    private static final int BUCKETS = 1 + (int) Math.ceil(Math.log(1e8 / LOWEST) / LOG_GROWTH);
+
+    private final long[] counts = new long[BUCKETS];
+    private long totalCount;
+    private double sum;
+    private double max;
+
+    public void record(double latency) {
+        int bucket = latency <= LOWEST ? 0 : (int) (Math.log(latency / LOWEST) / LOG_GROWTH);
+        if (bucket >= BUCKETS) {
+            bucket = BUCKETS - 1;
+        }
+        counts[bucket]++;
+        totalCount++;
+        sum += latency;
+        if (latency > max) {
+            max = latency;
+        }
+    }
+
+    /**
+     * @param quantile quantile in {@code [0, 1]}
+     * @return upper bound of the bucket holding the quantile, capped at the maximum, or 0 if nothing was recorded
+     */
+    public double getValueAtQuantile(double quantile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * totalCount));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min(max, LOWEST * Math.pow(GROWTH, bucket + 1));
+            }
+        }
+        return max;
+    }
+
+    public long getCount() {
+        return totalCount;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public double getMean() {
+        return totalCount == 0 ? 0 : sum / totalCount;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        sum = 0;
+        max = 0;
+    }
+}
@@ -0,0 +1,143 @@
+package org.fog.test.perfeval;
+
+import org.fog.application.AppLoop;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Records the latency of every completed application loop in fixed memory histograms.
+ * <p>
+ * Each loop has a histogram over the whole run and one over the current window of simulated time. When a
+ * latency is recorded past the end of the window, a snapshot of every loop (count, mean, p50, p95, p99, p99.9
+ * and max) is appended to the export file and the window histograms are reset. Recording a latency does not
+ * allocate; only window snapshots do.
+ *
+ * @author Narendra : x23429615
+ */
+public class LoopLatencyRecorder {
+
+    private final List<AppLoop> loops;
+    private final String[] loopNames;
+    private final LatencyHistogram[] totals;
+    private final LatencyHistogram[] windows;
+    private final double windowLength;
+    private double windowStart;
+    private Writer export;
+
+    /**
+     * @param loops        loops of the application, in the order their snapshots are written
+     * @param windowLength length of a snapshot window in simulated time units
+     * @param exportPath   CSV file the window snapshots are appended to, or null to only keep the run histograms
+     */
+    public LoopLatencyRecorder(List<AppLoop> loops, double windowLength, String exportPath) throws IOException {
+        this.loops = loops;
+        this.windowLength = windowLength;
+        loopNames = new String[loops.size()];
+        totals = new LatencyHistogram[loops.size()];
+        windows = new LatencyHistogram[loops.size()];
+        for (int i = 0; i < loops.size(); i++) {
+            loopNames[i] = getLoopName(loops.get(i));
+            totals[i] = new LatencyHistogram();
+            windows[i] = new LatencyHistogram();
+        }
+        if (exportPath != null) {
+            export = new BufferedWriter(new FileWriter(exportPath));
+            export.write("windowStart,windowEnd,loop,count,mean,p50,p95,p99,p999,max\n");
+        }
+    }
+
+    /**
+     * @return name of the loop, i.e. its first element
+     */
+    static String getLoopName(AppLoop loop) {
+        return loop.getModules().get(0);
+    }
+
+    /**
+     * @return index of the loop ending with the edge from {@code srcModule} to {@code destModule}, or -1
+     */
+    public int getLoopIndex(String srcModule, String destModule) {
+        for (int i = 0; i < loops.size(); i++) {
+            AppLoop loop = loops.get(i);
+            if (loop.hasEdge(srcModule, destModule) && loop.isEndModule(destModule)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public void record(int loopIndex, double latency, double now) {
+        if (now >= windowStart + windowLength) {
+            flushWindows(now);
+        }
+        totals[loopIndex].record(latency);
+        windows[loopIndex].record(latency);
+    }
+
+    private void flushWindows(double now) {
+        while (now >= windowStart + windowLength) {
+            double windowEnd = windowStart + windowLength;
+            for (int i = 0; i < windows.length; i++) {
+                writeSnapshot(windowStart, windowEnd, i);
+                windows[i].reset();
+            }
+            windowStart = windowEnd;
+        }
+    }
+
+    private void writeSnapshot(double start, double end, int loopIndex) {
+        if (export == null) {
+            return;
+        }
+        LatencyHistogram window = windows[loopIndex];
+        try {
+            export.write(start + "," + end + "," + loopNames[loopIndex] + "," + window.getCount() + "," + window.getMean()
+                    + "," + window.getValueAtQuantile(0.5) + "," + window.getValueAtQuantile(0.95)
+                    + "," + window.getValueAtQuantile(0.99) + "," + window.getValueAtQuantile(0.999)
+                    + "," + window.getMax() + "\n");
+        } catch (IOException e) {
+            e.printStackTrace();
+            export = null;
+        }
+    }
+
+    public int getLoopCount() {
+        return loopNames.length;
+    }
+
+    public String getLoopName(int loopIndex) {
+        return loopNames[loopIndex];
+    }
+
+    /**
+     * @return histogram of the loop over the whole run
+     */
+    public LatencyHistogram getHistogram(int loopIndex) {
+        return totals[loopIndex];
+    }
+
+    /**
+     * Writes the partially filled current window and closes the export file.
+     */
+    public void close(double now) {
+        if (export == null) {
+            return;
+        }
+        flushWindows(now);
+        for (int i = 0; i < windows.length; i++) {
+            if (windows[i].getCount() > 0) {
+                writeSnapshot(windowStart, now, i);
+            }
+        }
+        try {
+            export.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        export = null;
+    }
+}
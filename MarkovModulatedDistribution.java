@@ -0,0 +1,60 @@
+package org.fog.test.perfeval;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.fog.utils.distribution.Distribution;
+
+import java.util.Random;
+
+/**
+ * Two-state Markov-modulated Poisson arrivals: in the calm state inter-transmission times are exponential with
+ * mean {@code calmInterval} and in the busy state with mean {@code busyInterval}. The state lasts an
+ * exponentially distributed time with mean {@code calmDuration} or {@code busyDuration} before switching.
+ *
+ * @author Narendra : x23429615
+ */
+public class MarkovModulatedDistribution extends Distribution {
+
+    private final double calmInterval;
+    private final double busyInterval;
+    private final double calmDuration;
+    private final double busyDuration;
+    private final Random random;
+    private boolean busy;
+    private double stateEnd;
+
+    public MarkovModulatedDistribution(double calmInterval, double busyInterval, double calmDuration,
+                                       double busyDuration, long seed) {
+        this.calmInterval = calmInterval;
+        this.busyInterval = busyInterval;
+        this.calmDuration = calmDuration;
+        this.busyDuration = busyDuration;
+        this.random = new Random(seed);
+        this.stateEnd = exponential(calmDuration);
+    }
+
+    @Override
+    public double getNextValue() {
+        double now = CloudSim.clock();
+        while (now >= stateEnd) {
+            busy = !busy;
+            stateEnd += exponential(busy ? busyDuration : calmDuration);
+        }
+        return exponential(busy ? busyInterval : calmInterval);
+    }
+
+    private double exponential(double mean) {
+        return -mean * Math.log(1 - random.nextDouble());
+    }
+
+    @Override
+    public int getDistributionType() {
+        return -1;
+    }
+
+    @Override
+    public double getMeanInterTransmitTime() {
+        double busyShare = busyDuration / (calmDuration + busyDuration);
+        double rate = busyShare / busyInterval + (1 - busyShare) / calmInterval;
+        return 1 / rate;
+    }
+}
@@ -0,0 +1,55 @@
+package org.fog.test.perfeval;
+
+/**
+ * The kinds of meters in the Advance Metering Infrastructure, with the tuple type their sensors emit, the
+ * application module that processes them and the actuator that receives the result.
+ *
+ * @author Narendra : x23429615
+ */
+public enum MeterType {
+    PULSE("PULSE", "pulse-monitoring", "PULSE_MONITOR"),
+    ELECTRICITY("ELECTRICITY", "electricity-usage", "ELECTRICITY-MONITOR"),
+    FREQUENCY("FREQUENCY", "electric-frequency-sensing", "FREQUENCY_MONITOR"),
+    WATER("WATER", "water-sensing", "WATER_MONITOR"),
+    ANALOG_VALUE("ANALOG-VALUE", "analog-value-usage", "ANALOG_VALUE_MONITOR");
+
+    private final String tupleType;
+    private final String moduleName;
+    private final String actuatorType;
+
+    MeterType(String tupleType, String moduleName, String actuatorType) {
+        this.tupleType = tupleType;
+        this.moduleName = moduleName;
+        this.actuatorType = actuatorType;
+    }
+
+    /**
+     * @return meter type whose sensors emit the tuple type, or null
+     */
+    public static MeterType fromTupleType(String tupleType) {
+        for (MeterType type : values()) {
+            if (type.tupleType.equals(tupleType)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return tuple type emitted by the sensors of this meter type
+     */
+    public String getTupleType() {
+        return tupleType;
+    }
+
+    /**
+     * @return application module processing the readings of this meter type
+     */
+    public String getModuleName() {
+        return moduleName;
+    }
+
+    public String getActuatorType() {
+        return actuatorType;
+    }
+}
@@ -0,0 +1,458 @@
+package org.fog.test.perfeval;
+
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmAllocationPolicy;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.fog.entities.FogDevice;
+import org.fog.entities.FogDeviceCharacteristics;
+import org.fog.entities.Tuple;
+import org.fog.utils.FogEvents;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fog device of the Advance Metering Infrastructure topology.
+ * <p>
+ * When the {@link BatchingPolicy} batches, the upstream reading tuples produced by the modules placed on this
+ * device are held back and folded into one batch tuple per batch, which is resized to the modelled batch
+ * size and CPU cost before it is forwarded. With an {@link AdmissionPolicy}, tuples arriving for the modules
+ * of the device are dropped or deferred while the device is full. With a sleeping {@link PowerPolicy}, the
+ * device sleeps when idle and tuples wait for it to wake up. The device also counts the bytes it sends
+ * up and down and the tuples its modules execute.
+ *
+ * @author Narendra : x23429615
+ */
+public class MeteringFogDevice extends FogDevice {
+
+    private static final Set<String> BATCH_TUPLE_TYPES = new HashSet<String>();
+
+    static {
+        for (MeterType type : MeterType.values()) {
+            BATCH_TUPLE_TYPES.add(BatchingPolicy.getBatchTupleType(type));
+        }
+    }
+
+    private BatchingPolicy batchingPolicy;
+    private final Map<String, Batch> batches = new HashMap<String, Batch>();
+    private final Set<Tuple> releasedBatches = Collections.newSetFromMap(new IdentityHashMap<Tuple, Boolean>());
+    private long batchedReadings;
+    private long forwardedBatches;
+    private long forwardedBatchBytes;
+    private double totalHoldingDelay;
+    private long uplinkBytes;
+    private long downlinkBytes;
+    private long processedTuples;
+    private long arrivedTuples;
+    private long distinctArrivals;
+    private long uplinkTuples;
+    private long contendedUplinkTuples;
+    private AdmissionPolicy admissionPolicy;
+    private final Map<Tuple, Integer> deferrals = new IdentityHashMap<Tuple, Integer>();
+    private final Map<Tuple, Double> firstArrivals = new IdentityHashMap<Tuple, Double>();
+    private final Set<Tuple> wakeRetries = Collections.newSetFromMap(new IdentityHashMap<Tuple, Boolean>());
+    private long offeredTuples;
+    private long droppedTuples;
+    private long deferredTuples;
+    private double totalAdmissionWait;
+    private PowerPolicy powerPolicy;
+    private double lastActivity;
+    private double awakeAt;
+    private double sleepTime;
+    private long wakeups;
+    private double totalWakeWait;
+
+    public MeteringFogDevice(String name, FogDeviceCharacteristics characteristics, VmAllocationPolicy vmAllocationPolicy,
+                             List<Storage> storageList, double schedulingInterval, double uplinkBandwidth,
+                             double downlinkBandwidth, double uplinkLatency, double ratePerMips) throws Exception {
+        super(name, characteristics, vmAllocationPolicy, storageList, schedulingInterval, uplinkBandwidth,
+                downlinkBandwidth, uplinkLatency, ratePerMips);
+    }
+
+    @Override
+    protected void processOtherEvent(SimEvent ev) {
+        switch (ev.getTag()) {
+            case AmiEvents.FLUSH_BATCH:
+                flushBatch((String) ev.getData());
+                break;
+            case FogEvents.TUPLE_ARRIVAL:
+                Tuple tuple = (Tuple) ev.getData();
+                arrivedTuples++;
+                if (!wakeRetries.remove(tuple) && !deferrals.containsKey(tuple)) {
+                    distinctArrivals++;
+                }
+                if (delayUntilAwake(tuple)) {
+                    break;
+                }
+                if (deferrals.containsKey(tuple) || !holdForBatching(tuple)) {
+                    if (isHosted(tuple)) {
+                        if (!admit(tuple)) {
+                            break;
+                        }
+                        processedTuples++;
+                    }
+                    super.processOtherEvent(ev);
+                }
+                break;
+            default:
+                super.processOtherEvent(ev);
+                break;
+        }
+    }
+
+    @Override
+    protected void checkCloudletCompletion() {
+        super.checkCloudletCompletion();
+        if (powerPolicy != null && getExecutingTuples() == 0) {
+            lastActivity = Math.max(lastActivity, CloudSim.clock());
+        }
+    }
+
+    @Override
+    protected void sendUp(Tuple tuple) {
+        uplinkBytes += tuple.getCloudletFileSize();
+        uplinkTuples++;
+        if (isNorthLinkBusy()) {
+            contendedUplinkTuples++;
+        }
+        super.sendUp(tuple);
+    }
+
+    @Override
+    protected void sendDown(Tuple tuple, int childId) {
+        downlinkBytes += tuple.getCloudletFileSize();
+        super.sendDown(tuple, childId);
+    }
+
+    /**
+     * @return true if the destination module of the tuple runs on this device
+     */
+    private boolean isHosted(Tuple tuple) {
+        List<String> modules = getAppToModulesMap().get(tuple.getAppId());
+        return modules != null && modules.contains(tuple.getDestModuleName());
+    }
+
+    /**
+     * Wakes the device up if the tuple finds it asleep and holds the tuple back until it is awake.
+     *
+     * @return true if the tuple is held back, false if the device is awake
+     */
+    private boolean delayUntilAwake(Tuple tuple) {
+        if (powerPolicy == null || !powerPolicy.isSleeping()) {
+            return false;
+        }
+        double now = CloudSim.clock();
+        if (now < awakeAt) {
+            totalWakeWait += awakeAt - now;
+            wakeRetries.add(tuple);
+            send(getId(), awakeAt - now, FogEvents.TUPLE_ARRIVAL, tuple);
+            return true;
+        }
+        double asleep = settleSleep(now);
+        lastActivity = now;
+        if (asleep <= 0) {
+            return false;
+        }
+        wakeups++;
+        setEnergyConsumption(getEnergyConsumption() + powerPolicy.getWakeEnergy());
+        if (powerPolicy.getWakeLatency() <= 0) {
+            return false;
+        }
+        awakeAt = now + powerPolicy.getWakeLatency();
+        lastActivity = awakeAt;
+        totalWakeWait += powerPolicy.getWakeLatency();
+        wakeRetries.add(tuple);
+        send(getId(), powerPolicy.getWakeLatency(), FogEvents.TUPLE_ARRIVAL, tuple);
+        return true;
+    }
+
+    /**
+     * Accounts for the time the device has been asleep until now: the idle power the energy model charged for
+     * it is replaced by the sleep power.
+     *
+     * @return time the device has been asleep since its last activity
+     */
+    double settleSleep(double now) {
+        if (powerPolicy == null || !powerPolicy.isSleeping() || getExecutingTuples() > 0) {
+            return 0;
+        }
+        double asleep = now - lastActivity - powerPolicy.getSleepTimeout();
+        if (asleep <= 0) {
+            return 0;
+        }
+        double idlePower = getHost().getPowerModel().getPower(0);
+        setEnergyConsumption(getEnergyConsumption() - asleep * idlePower * (1 - powerPolicy.getSleepPowerRatio()));
+        sleepTime += asleep;
+        lastActivity = now - powerPolicy.getSleepTimeout();
+        return asleep;
+    }
+
+    /**
+     * Applies the admission policy to a tuple for one of the modules of this device.
+     *
+     * @return true if the tuple is admitted, false if it is dropped or deferred
+     */
+    private boolean admit(Tuple tuple) {
+        if (admissionPolicy == null || !admissionPolicy.isEnabled()) {
+            return true;
+        }
+        Integer deferred = deferrals.remove(tuple);
+        Double firstArrival = firstArrivals.remove(tuple);
+        if (deferred == null) {
+            offeredTuples++;
+            deferred = 0;
+            firstArrival = CloudSim.clock();
+        }
+        if (getExecutingTuples() < admissionPolicy.getCapacity()) {
+            totalAdmissionWait += CloudSim.clock() - firstArrival;
+            return true;
+        }
+        if (admissionPolicy.getMode() == AdmissionPolicy.Mode.DEFER && deferred < admissionPolicy.getMaxDeferrals()) {
+            deferredTuples++;
+            deferrals.put(tuple, deferred + 1);
+            firstArrivals.put(tuple, firstArrival);
+            send(getId(), admissionPolicy.getDeferDelay(), FogEvents.TUPLE_ARRIVAL, tuple);
+        } else {
+            droppedTuples++;
+        }
+        return false;
+    }
+
+    /**
+     * @return tuples executing in the modules of this device
+     */
+    public int getExecutingTuples() {
+        int executing = 0;
+        for (Vm vm : getHost().getVmList()) {
+            executing += vm.getCloudletScheduler().runningCloudlets();
+        }
+        return executing;
+    }
+
+    /**
+     * @return tuples deferred by the admission control that are waiting to be retried
+     */
+    public int getDeferredBacklog() {
+        return deferrals.size();
+    }
+
+    /**
+     * Adds a reading produced on this device to its batch.
+     *
+     * @return true if the tuple is held back, false if it has to be processed now
+     */
+    private boolean holdForBatching(Tuple tuple) {
+        if (batchingPolicy == null || !batchingPolicy.isBatching() || tuple.getSourceDeviceId() != getId()
+                || !BATCH_TUPLE_TYPES.contains(tuple.getTupleType())) {
+            return false;
+        }
+        if (releasedBatches.remove(tuple)) {
+            return false;
+        }
+        Batch batch = batches.get(tuple.getTupleType());
+        if (batch == null) {
+            batch = new Batch();
+            batches.put(tuple.getTupleType(), batch);
+        }
+        batch.add(tuple, CloudSim.clock());
+        if (batchingPolicy.getMode() == BatchingPolicy.Mode.COUNT) {
+            if (batch.readings < batchingPolicy.getBatchSize()) {
+                return true;
+            }
+            release(batch);
+            return false;
+        }
+        if (batch.readings == 1) {
+            send(getId(), batchingPolicy.getWindow(), AmiEvents.FLUSH_BATCH, tuple.getTupleType());
+        }
+        return true;
+    }
+
+    private void flushBatch(String tupleType) {
+        Batch batch = batches.get(tupleType);
+        if (batch == null || batch.readings == 0) {
+            return;
+        }
+        Tuple tuple = release(batch);
+        releasedBatches.add(tuple);
+        send(getId(), 0, FogEvents.TUPLE_ARRIVAL, tuple);
+    }
+
+    /**
+     * Turns the last reading of the batch into the batch tuple and empties the batch.
+     */
+    private Tuple release(Batch batch) {
+        Tuple tuple = batch.last;
+        int readings = batch.readings;
+        long bytes = batchingPolicy.getBatchBytes(tuple.getTupleType(), readings);
+        tuple.setCloudletLength(batchingPolicy.getBatchCpuLength(tuple.getTupleType(), readings));
+        tuple.setCloudletFileSize(bytes);
+
+        batchedReadings += readings;
+        forwardedBatches++;
+        forwardedBatchBytes += bytes;
+        totalHoldingDelay += readings * CloudSim.clock() - batch.arrivalTimeSum;
+        batch.clear();
+        return tuple;
+    }
+
+    /**
+     * @return bytes of the tuples sent to the parent device
+     */
+    public long getUplinkBytes() {
+        return uplinkBytes;
+    }
+
+    /**
+     * @return bytes of the tuples sent to the child devices
+     */
+    public long getDownlinkBytes() {
+        return downlinkBytes;
+    }
+
+    /**
+     * @return tuples executed by the modules running on this device
+     */
+    public long getProcessedTuples() {
+        return processedTuples;
+    }
+
+    /**
+     * @return tuple arrival events, including the retries of tuples deferred or waiting for a wake-up
+     */
+    public long getArrivedTuples() {
+        return arrivedTuples;
+    }
+
+    /**
+     * @return tuples that arrived, each counted once however often it was deferred or waited for a wake-up
+     */
+    public long getDistinctArrivals() {
+        return distinctArrivals;
+    }
+
+    public long getUplinkTuples() {
+        return uplinkTuples;
+    }
+
+    /**
+     * @return tuples sent to the parent device that had to queue behind another tuple on the uplink
+     */
+    public long getContendedUplinkTuples() {
+        return contendedUplinkTuples;
+    }
+
+    public AdmissionPolicy getAdmissionPolicy() {
+        return admissionPolicy;
+    }
+
+    public void setAdmissionPolicy(AdmissionPolicy admissionPolicy) {
+        this.admissionPolicy = admissionPolicy;
+    }
+
+    /**
+     * @return tuples that reached the admission control of this device, counting each tuple once
+     */
+    public long getOfferedTuples() {
+        return offeredTuples;
+    }
+
+    public long getDroppedTuples() {
+        return droppedTuples;
+    }
+
+    /**
+     * @return number of deferrals, a tuple deferred several times counts several times
+     */
+    public long getDeferredTuples() {
+        return deferredTuples;
+    }
+
+    /**
+     * @return sum over the admitted tuples of the time between their first arrival and their admission
+     */
+    public double getTotalAdmissionWait() {
+        return totalAdmissionWait;
+    }
+
+    public PowerPolicy getPowerPolicy() {
+        return powerPolicy;
+    }
+
+    public void setPowerPolicy(PowerPolicy powerPolicy) {
+        this.powerPolicy = powerPolicy;
+    }
+
+    /**
+     * @return time spent asleep, up to the last wake-up or {@link #settleSleep}
+     */
+    public double getSleepTime() {
+        return sleepTime;
+    }
+
+    public long getWakeups() {
+        return wakeups;
+    }
+
+    /**
+     * @return sum over the tuples of the time they waited for the device to wake up
+     */
+    public double getTotalWakeWait() {
+        return totalWakeWait;
+    }
+
+    public BatchingPolicy getBatchingPolicy() {
+        return batchingPolicy;
+    }
+
+    public void setBatchingPolicy(BatchingPolicy batchingPolicy) {
+        this.batchingPolicy = batchingPolicy;
+    }
+
+    public long getBatchedReadings() {
+        return batchedReadings;
+    }
+
+    public long getForwardedBatches() {
+        return forwardedBatches;
+    }
+
+    public long getForwardedBatchBytes() {
+        return forwardedBatchBytes;
+    }
+
+    /**
+     * @return sum over all forwarded readings of the time they were held back on this device
+     */
+    public double getTotalHoldingDelay() {
+        return totalHoldingDelay;
+    }
+
+    /**
+     * Readings waiting on this device for their batch to be forwarded.
+     */
+    private static class Batch {
+        Tuple last;
+        int readings;
+        double arrivalTimeSum;
+
+        void add(Tuple tuple, double now) {
+            last = tuple;
+            readings++;
+            arrivalTimeSum += now;
+        }
+
+        void clear() {
+            last = null;
+            readings = 0;
+            arrivalTimeSum = 0;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.fog.test.perfeval;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.fog.entities.Actuator;
+import org.fog.entities.Tuple;
+import org.fog.utils.FogEvents;
+import org.fog.utils.TimeKeeper;
+
+/**
+ * Actuator that reports the latency of the application loop each arriving tuple completes to a
+ * {@link LoopLatencyRecorder}, before handing the tuple to the regular actuator processing.
+ *
+ * @author Narendra : x23429615
+ */
+public class MonitoredActuator extends Actuator {
+
+    private static final int UNRESOLVED = -2;
+
+    private final LoopLatencyRecorder recorder;
+    private int loopIndex = UNRESOLVED; // an actuator only receives the tuples of the edge ending in it
+
+    public MonitoredActuator(String name, int userId, String appId, String actuatorType, LoopLatencyRecorder recorder) {
+        super(name, userId, appId, actuatorType);
+        this.recorder = recorder;
+    }
+
+    @Override
+    public void processEvent(SimEvent ev) {
+        if (ev.getTag() == FogEvents.TUPLE_ARRIVAL) {
+            recordLoopLatency((Tuple) ev.getData());
+        }
+        super.processEvent(ev);
+    }
+
+    private void recordLoopLatency(Tuple tuple) {
+        if (loopIndex == UNRESOLVED) {
+            loopIndex = recorder.getLoopIndex(tuple.getSrcModuleName(), tuple.getDestModuleName());
+        }
+        if (loopIndex < 0) {
+            return;
+        }
+        Double emitTime = TimeKeeper.getInstance().getEmitTimes().get(tuple.getActualTupleId());
+        if (emitTime != null) {
+            recorder.record(loopIndex, CloudSim.clock() - emitTime, CloudSim.clock());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.fog.test.perfeval;
+
+/**
+ * Encoding of the payload of the tuples on one stage of the application: the sensor edges from the meters to
+ * the meter modules, or the upstream edges from the meter modules towards the analytics.
+ * <p>
+ * An encoded payload is {@code ratio} of its raw size. Encoding costs the sender {@code encodeCpuPerByte} MI
+ * and decoding costs the receiver {@code decodeCpuPerByte} MI per raw byte. The defaults of each {@link Codec}
+ * reflect slowly changing meter values: delta encoding stores the change since the previous reading, varint
+ * and dictionary compaction shorten the fields and general compression (deflate) costs the most CPU for the
+ * best ratio. The ratio and costs can be overridden to match measured firmware; an override holds whichever
+ * codec is selected, before or after it.
+ *
+ * @author Narendra : x23429615
+ */
+public class PayloadEncoding {
+
+    public enum Codec {
+        NONE(1, 0, 0),
+        DELTA(0.3, 0.05, 0.05),
+        VARINT(0.5, 0.03, 0.03),
+        DICTIONARY(0.4, 0.1, 0.05),
+        DEFLATE(0.25, 0.5, 0.15);
+
+        private final double ratio;
+        private final double encodeCpuPerByte;
+        private final double decodeCpuPerByte;
+
+        Codec(double ratio, double encodeCpuPerByte, double decodeCpuPerByte) {
+            this.ratio = ratio;
+            this.encodeCpuPerByte = encodeCpuPerByte;
+            this.decodeCpuPerByte = decodeCpuPerByte;
+        }
+    }
+
+    private Codec codec = Codec.NONE;
+    private Double ratio; // null for the default of the codec
+    private Double encodeCpuPerByte;
+    private Double decodeCpuPerByte;
+
+    public boolean isEnabled() {
+        return codec != Codec.NONE;
+    }
+
+    /**
+     * @return size of the encoded payload, at least one byte
+     */
+    public long getEncodedBytes(long rawBytes) {
+        return Math.max(1, Math.round(rawBytes * getRatio()));
+    }
+
+    public double getEncodeCpu(long rawBytes) {
+        return rawBytes * getEncodeCpuPerByte();
+    }
+
+    public double getDecodeCpu(long rawBytes) {
+        return rawBytes * getDecodeCpuPerByte();
+    }
+
+    /**
+     * @return true if the ratio or a cost was set explicitly
+     */
+    public boolean hasOverrides() {
+        return ratio != null || encodeCpuPerByte != null || decodeCpuPerByte != null;
+    }
+
+    public Codec getCodec() {
+        return codec;
+    }
+
+    /**
+     * Selects the codec; the ratio and costs that were not overridden follow its defaults.
+     */
+    public void setCodec(Codec codec) {
+        this.codec = codec;
+    }
+
+    public double getRatio() {
+        return ratio != null ? ratio : codec.ratio;
+    }
+
+    public void setRatio(double ratio) {
+        if (ratio <= 0 || ratio > 1) {
+            throw new IllegalArgumentException("Compression ratio must be in (0, 1] but was " + ratio);
+        }
+        this.ratio = ratio;
+    }
+
+    public double getEncodeCpuPerByte() {
+        return encodeCpuPerByte != null ? encodeCpuPerByte : codec.encodeCpuPerByte;
+    }
+
+    public void setEncodeCpuPerByte(double encodeCpuPerByte) {
+        this.encodeCpuPerByte = checkCpuPerByte(encodeCpuPerByte);
+    }
+
+    public double getDecodeCpuPerByte() {
+        return decodeCpuPerByte != null ? decodeCpuPerByte : codec.decodeCpuPerByte;
+    }
+
+    public void setDecodeCpuPerByte(double decodeCpuPerByte) {
+        this.decodeCpuPerByte = checkCpuPerByte(decodeCpuPerByte);
+    }
+
+    private static double checkCpuPerByte(double cpuPerByte) {
+        if (cpuPerByte < 0) {
+            throw new IllegalArgumentException("CPU cost per byte must not be negative but was " + cpuPerByte);
+        }
+        return cpuPerByte;
+    }
+}
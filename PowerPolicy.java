@@ -0,0 +1,139 @@
+package org.fog.test.perfeval;
+
+/**
+ * Power management of the meter gateways.
+ * <p>
+ * A gateway that has neither executed nor received a tuple for {@code sleepTimeout} enters its
+ * {@link SleepState}, in which it draws {@code sleepPowerRatio} of its idle power. The next tuple finds it
+ * asleep and waits {@code wakeLatency} for it to wake up, which costs {@code wakeEnergy}.
+ * <p>
+ * {@link Scheduling#RACE} runs the gateways at full speed so they return to idle, and to sleep, as soon as
+ * possible. {@link Scheduling#STRETCH} runs them at {@code stretchFactor} of their MIPS; the dynamic part of
+ * their power falls with the cube of the speed, as with voltage and frequency scaling, while the idle power
+ * is unchanged.
+ *
+ * @author Narendra : x23429615
+ */
+public class PowerPolicy {
+
+    public enum SleepState {
+        OFF(1, 0, 0),
+        LIGHT(0.5, 0.1, 5),
+        DEEP(0.05, 2, 100);
+
+        private final double sleepPowerRatio;
+        private final double wakeLatency;
+        private final double wakeEnergy;
+
+        SleepState(double sleepPowerRatio, double wakeLatency, double wakeEnergy) {
+            this.sleepPowerRatio = sleepPowerRatio;
+            this.wakeLatency = wakeLatency;
+            this.wakeEnergy = wakeEnergy;
+        }
+    }
+
+    public enum Scheduling {
+        RACE,
+        STRETCH
+    }
+
+    private SleepState sleepState = SleepState.OFF;
+    private double sleepTimeout = 1;
+    private double sleepPowerRatio = SleepState.OFF.sleepPowerRatio;
+    private double wakeLatency = SleepState.OFF.wakeLatency;
+    private double wakeEnergy = SleepState.OFF.wakeEnergy;
+    private Scheduling scheduling = Scheduling.RACE;
+    private double stretchFactor = 0.5;
+
+    public boolean isSleeping() {
+        return sleepState != SleepState.OFF;
+    }
+
+    /**
+     * @return MIPS a gateway of the given full speed runs at
+     */
+    public long getMips(long mips) {
+        return scheduling == Scheduling.STRETCH ? Math.max(1, (long) (mips * stretchFactor)) : mips;
+    }
+
+    /**
+     * @return busy power of a gateway of the given full speed power model when it runs at {@link #getMips}
+     */
+    public double getBusyPower(double busyPower, double idlePower) {
+        if (scheduling == Scheduling.RACE) {
+            return busyPower;
+        }
+        return idlePower + (busyPower - idlePower) * stretchFactor * stretchFactor * stretchFactor;
+    }
+
+    public SleepState getSleepState() {
+        return sleepState;
+    }
+
+    /**
+     * Selects the sleep state and resets the sleep power, wake latency and wake energy to its defaults.
+     */
+    public void setSleepState(SleepState sleepState) {
+        this.sleepState = sleepState;
+        this.sleepPowerRatio = sleepState.sleepPowerRatio;
+        this.wakeLatency = sleepState.wakeLatency;
+        this.wakeEnergy = sleepState.wakeEnergy;
+    }
+
+    public double getSleepTimeout() {
+        return sleepTimeout;
+    }
+
+    public void setSleepTimeout(double sleepTimeout) {
+        if (sleepTimeout < 0) {
+            throw new IllegalArgumentException("Sleep timeout must not be negative");
+        }
+        this.sleepTimeout = sleepTimeout;
+    }
+
+    public double getSleepPowerRatio() {
+        return sleepPowerRatio;
+    }
+
+    public void setSleepPowerRatio(double sleepPowerRatio) {
+        if (sleepPowerRatio < 0 || sleepPowerRatio > 1) {
+            throw new IllegalArgumentException("Sleep power must be in [0, 1] of the idle power");
+        }
+        this.sleepPowerRatio = sleepPowerRatio;
+    }
+
+    public double getWakeLatency() {
+        return wakeLatency;
+    }
+
+    public void setWakeLatency(double wakeLatency) {
+        this.wakeLatency = wakeLatency;
+    }
+
+    public double getWakeEnergy() {
+        return wakeEnergy;
+    }
+
+    public void setWakeEnergy(double wakeEnergy) {
+        this.wakeEnergy = wakeEnergy;
+    }
+
+    public Scheduling getScheduling() {
+        return scheduling;
+    }
+
+    public void setScheduling(Scheduling scheduling) {
+        this.scheduling = scheduling;
+    }
+
+    public double getStretchFactor() {
+        return stretchFactor;
+    }
+
+    public void setStretchFactor(double stretchFactor) {
+        if (stretchFactor <= 0 || stretchFactor > 1) {
+            throw new IllegalArgumentException("Stretch factor must be in (0, 1]");
+        }
+        this.stretchFactor = stretchFactor;
+    }
+}
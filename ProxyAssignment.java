@@ -0,0 +1,115 @@
+package org.fog.test.perfeval;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Assignment of the sites to the proxies of the regional tier.
+ * <p>
+ * {@link Strategy#HASH} places every proxy on a consistent hash ring at {@code virtualNodes} points and
+ * assigns a site to the first proxy point at or after the hash of the site, so the sites spread evenly and
+ * only the sites of a failed proxy move, each to the next proxy on the ring. {@link Strategy#LOCALITY}
+ * assigns contiguous blocks of sites, neighbouring sites sharing a proxy; the sites of a failed proxy are
+ * split between the nearest live proxies on either side of its block.
+ *
+ * @author Narendra : x23429615
+ */
+public class ProxyAssignment {
+
+    public enum Strategy {
+        HASH,
+        LOCALITY
+    }
+
+    private final Strategy strategy;
+    private final int proxies;
+    private final int sites;
+    private final boolean[] failed;
+    private final TreeMap<Long, Integer> ring = new TreeMap<Long, Integer>();
+
+    public ProxyAssignment(Strategy strategy, int proxies, int virtualNodes, int sites) {
+        if (proxies < 1) {
+            throw new IllegalArgumentException("There must be at least one proxy");
+        }
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("Every proxy needs at least one virtual node");
+        }
+        this.strategy = strategy;
+        this.proxies = proxies;
+        this.sites = sites;
+        this.failed = new boolean[proxies];
+        for (int proxy = 0; proxy < proxies; proxy++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                ring.put(mix(((long) proxy << 32) | node), proxy);
+            }
+        }
+    }
+
+    /**
+     * @return index of the live proxy serving the site
+     */
+    public int getProxy(int site) {
+        if (strategy == Strategy.HASH) {
+            Map.Entry<Long, Integer> point = ring.ceilingEntry(mix(~(long) site));
+            return (point != null ? point : ring.firstEntry()).getValue();
+        }
+        int home = (int) ((long) site * proxies / Math.max(1, sites));
+        if (!failed[home]) {
+            return home;
+        }
+        int blockStart = (int) (((long) home * sites + proxies - 1) / proxies);
+        int blockEnd = (int) (((long) (home + 1) * sites + proxies - 1) / proxies);
+        boolean lowerHalf = site < (blockStart + blockEnd) / 2;
+        int nearest = nearestLive(home, lowerHalf ? -1 : 1);
+        return nearest >= 0 ? nearest : nearestLive(home, lowerHalf ? 1 : -1);
+    }
+
+    /**
+     * Marks the proxy failed; its sites move to live proxies.
+     */
+    public void fail(int proxy) {
+        if (failed[proxy]) {
+            return;
+        }
+        int live = 0;
+        for (boolean proxyFailed : failed) {
+            live += proxyFailed ? 0 : 1;
+        }
+        if (live == 1) {
+            throw new IllegalStateException("The last live proxy cannot fail");
+        }
+        failed[proxy] = true;
+        Iterator<Integer> owners = ring.values().iterator();
+        while (owners.hasNext()) {
+            if (owners.next() == proxy) {
+                owners.remove();
+            }
+        }
+    }
+
+    public boolean isFailed(int proxy) {
+        return failed[proxy];
+    }
+
+    private int nearestLive(int proxy, int step) {
+        for (int candidate = proxy + step; candidate >= 0 && candidate < proxies; candidate += step) {
+            if (!failed[candidate]) {
+                return candidate;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 64-bit finaliser of MurmurHash3, spreading consecutive keys over the ring.
+     */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb3f94d7c8e53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
@@ -0,0 +1,67 @@
+package org.fog.test.perfeval;
+
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.fog.entities.FogDevice;
+
+import java.util.List;
+
+/**
+ * Fails a proxy of the regional tier at a given simulated time and re-parents the routers of its sites to the
+ * proxies the {@link ProxyAssignment} moves them to. Tuples already on their way to the failed proxy are
+ * still delivered.
+ *
+ * @author Narendra : x23429615
+ */
+public class ProxyFailover extends SimEntity {
+
+    private final TopologyRegistry topology;
+    private final ProxyAssignment assignment;
+    private final int proxy;
+    private final double failureTime;
+    private int reassignedSites;
+
+    public ProxyFailover(TopologyRegistry topology, ProxyAssignment assignment, int proxy, double failureTime) {
+        super("proxy-failover");
+        this.topology = topology;
+        this.assignment = assignment;
+        this.proxy = proxy;
+        this.failureTime = failureTime;
+    }
+
+    @Override
+    public void startEntity() {
+        schedule(getId(), failureTime, AmiEvents.PROXY_FAILURE);
+    }
+
+    @Override
+    public void processEvent(SimEvent ev) {
+        if (ev.getTag() != AmiEvents.PROXY_FAILURE) {
+            return;
+        }
+        List<FogDevice> proxies = topology.getDevices(Tier.PROXY);
+        assignment.fail(proxy);
+        for (TopologyRegistry.Site site : topology.getSites()) {
+            FogDevice router = site.getRouter();
+            FogDevice target = proxies.get(assignment.getProxy(Integer.parseInt(site.getId())));
+            if (target.getId() == router.getParentId()) {
+                continue;
+            }
+            FogDevice current = topology.getDevice(router.getParentId());
+            current.getChildrenIds().remove(Integer.valueOf(router.getId()));
+            current.getChildToLatencyMap().remove(router.getId());
+            target.getChildrenIds().add(router.getId());
+            target.getChildToLatencyMap().put(router.getId(), router.getUplinkLatency());
+            router.setParentId(target.getId());
+            reassignedSites++;
+        }
+    }
+
+    @Override
+    public void shutdownEntity() {
+    }
+
+    public int getReassignedSites() {
+        return reassignedSites;
+    }
+}
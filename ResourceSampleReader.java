@@ -0,0 +1,157 @@
+package org.fog.test.perfeval;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads the resource samples written by {@link ResourceSampler} through memory-mapped windows of the file and
+ * converts them to CSV with one row per sample and device, e.g.
+ * {@code ResourceSampleReader ami-samples.bin ami-samples.csv}.
+ *
+ * @author Narendra : x23429615
+ */
+public class ResourceSampleReader implements Closeable {
+
+    private static final long WINDOW_BYTES = 64 << 20;
+
+    private final RandomAccessFile file;
+    private final String[] deviceNames;
+    private final String[] columns;
+    private final double interval;
+    private final long dataStart;
+    private final long blockBytes;
+    private final long samples;
+    private MappedByteBuffer window;
+    private long windowFirst;
+    private long windowSamples;
+
+    public ResourceSampleReader(String path) throws IOException {
+        file = new RandomAccessFile(path, "r");
+        try {
+            if (file.readInt() != ResourceSampler.MAGIC) {
+                throw new IOException(path + " is not a resource sample file");
+            }
+            int version = file.readInt();
+            if (version != ResourceSampler.VERSION) {
+                throw new IOException("Unsupported resource sample file version " + version);
+            }
+            deviceNames = new String[file.readInt()];
+            columns = new String[file.readInt()];
+            interval = file.readDouble();
+            long recordedSamples = file.readLong();
+            for (int i = 0; i < deviceNames.length; i++) {
+                deviceNames[i] = file.readUTF();
+            }
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = i < ResourceSampler.COLUMNS.length ? ResourceSampler.COLUMNS[i] : "column" + i;
+            }
+            dataStart = file.getFilePointer();
+            blockBytes = 8L * (1 + columns.length * deviceNames.length);
+            samples = recordedSamples > 0 ? recordedSamples : countWrittenSamples();
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: ResourceSampleReader <samples.bin> <samples.csv>");
+            return;
+        }
+        ResourceSampleReader reader = new ResourceSampleReader(args[0]);
+        try {
+            reader.writeCsv(args[1]);
+        } finally {
+            reader.close();
+        }
+        System.out.println(reader.getSamples() + " sample(s) of " + reader.getDeviceNames().length + " device(s) written to " + args[1]);
+    }
+
+    /**
+     * A run that ended without closing the sampler leaves the sample count at 0 and zeroed blocks after the
+     * last sample; sample times are positive, so the samples end at the first zero time.
+     */
+    private long countWrittenSamples() throws IOException {
+        long blocks = (file.length() - dataStart) / blockBytes;
+        long count = 0;
+        while (count < blocks && getTime(count) > 0) {
+            count++;
+        }
+        return count;
+    }
+
+    public void writeCsv(String path) throws IOException {
+        Writer csv = new BufferedWriter(new FileWriter(path));
+        try {
+            csv.write("time,device");
+            for (String column : columns) {
+                csv.write("," + column);
+            }
+            csv.write("\n");
+            for (long sample = 0; sample < samples; sample++) {
+                double time = getTime(sample);
+                for (int device = 0; device < deviceNames.length; device++) {
+                    csv.write(time + "," + deviceNames[device]);
+                    for (int column = 0; column < columns.length; column++) {
+                        csv.write("," + getValue(sample, column, device));
+                    }
+                    csv.write("\n");
+                }
+            }
+        } finally {
+            csv.close();
+        }
+    }
+
+    public double getTime(long sample) throws IOException {
+        return getWindow(sample).getDouble((int) ((sample - windowFirst) * blockBytes));
+    }
+
+    public double getValue(long sample, int column, int device) throws IOException {
+        return getWindow(sample).getDouble((int) ((sample - windowFirst) * blockBytes + 8L * (1 + column * deviceNames.length + device)));
+    }
+
+    /**
+     * @return mapped window of the file holding the sample
+     */
+    private MappedByteBuffer getWindow(long sample) throws IOException {
+        if (window == null || sample < windowFirst || sample >= windowFirst + windowSamples) {
+            long blocks = (file.length() - dataStart) / blockBytes;
+            windowFirst = sample;
+            windowSamples = Math.min(Math.max(WINDOW_BYTES / blockBytes, 1), blocks - sample);
+            window = file.getChannel().map(FileChannel.MapMode.READ_ONLY, dataStart + sample * blockBytes, windowSamples * blockBytes);
+            window.order(ByteOrder.BIG_ENDIAN);
+        }
+        return window;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        file.close();
+    }
+
+    public String[] getDeviceNames() {
+        return deviceNames.clone();
+    }
+
+    public String[] getColumns() {
+        return columns.clone();
+    }
+
+    public double getInterval() {
+        return interval;
+    }
+
+    public long getSamples() {
+        return samples;
+    }
+}
@@ -0,0 +1,172 @@
+package org.fog.test.perfeval;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.fog.entities.FogDevice;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Samples the resources of every fog device each {@code interval} of simulated time into an append-only
+ * columnar binary file, written through memory-mapped regions of the file.
+ * <p>
+ * The file starts with a header: the magic number, the format version, the number of devices, the number of
+ * columns, the sampling interval, the number of samples and the device names in modified UTF-8. Then it has
+ * one fixed-size block per sample: its time followed by one column of a value per device for each of
+ * {@link #COLUMNS}, all doubles in big-endian order. The values of a column are:
+ * <ul>
+ * <li>{@code cpu}: CPU utilisation of the host at the sample time</li>
+ * <li>{@code queue}: tuples executing, waiting for admission or queued on the links</li>
+ * <li>{@code wait}: time waited for admission or a wake-up during the interval per tuple first arriving in
+ * it, retries not counted as arrivals</li>
+ * <li>{@code uplinkBytes}, {@code downlinkBytes}: bytes sent during the interval</li>
+ * </ul>
+ * {@link ResourceSampleReader} converts the file to CSV.
+ *
+ * @author Narendra : x23429615
+ */
+public class ResourceSampler extends SimEntity {
+
+    static final int MAGIC = 0x414d4953; // "AMIS"
+    static final int VERSION = 1;
+    static final String[] COLUMNS = {"cpu", "queue", "wait", "uplinkBytes", "downlinkBytes"};
+    static final int SAMPLE_COUNT_OFFSET = 24;
+    private static final long REGION_BYTES = 8 << 20;
+
+    private final List<MeteringFogDevice> devices = new ArrayList<MeteringFogDevice>();
+    private final double interval;
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final long dataStart;
+    private final long blockBytes;
+    private final long[] lastUplinkBytes;
+    private final long[] lastDownlinkBytes;
+    private final long[] lastArrivals;
+    private final double[] lastWait;
+    private MappedByteBuffer region;
+    private long regionStart;
+    private long samples;
+
+    public ResourceSampler(List<FogDevice> fogDevices, double interval, String path) throws IOException {
+        super("resource-sampler");
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Sampling interval must be positive");
+        }
+        for (FogDevice device : fogDevices) {
+            devices.add((MeteringFogDevice) device);
+        }
+        this.interval = interval;
+        lastUplinkBytes = new long[devices.size()];
+        lastDownlinkBytes = new long[devices.size()];
+        lastArrivals = new long[devices.size()];
+        lastWait = new double[devices.size()];
+        blockBytes = 8L * (1 + COLUMNS.length * devices.size());
+
+        file = new RandomAccessFile(path, "rw");
+        file.setLength(0);
+        file.writeInt(MAGIC);
+        file.writeInt(VERSION);
+        file.writeInt(devices.size());
+        file.writeInt(COLUMNS.length);
+        file.writeDouble(interval);
+        file.writeLong(0);
+        for (MeteringFogDevice device : devices) {
+            file.writeUTF(device.getName());
+        }
+        dataStart = file.getFilePointer();
+        channel = file.getChannel();
+        regionStart = dataStart;
+    }
+
+    @Override
+    public void startEntity() {
+        schedule(getId(), interval, AmiEvents.SAMPLE_RESOURCES);
+    }
+
+    @Override
+    public void processEvent(SimEvent ev) {
+        if (ev.getTag() != AmiEvents.SAMPLE_RESOURCES || channel == null || !channel.isOpen()) {
+            return;
+        }
+        try {
+            writeSample(CloudSim.clock());
+        } catch (IOException e) {
+            e.printStackTrace();
+            close();
+            return;
+        }
+        schedule(getId(), interval, AmiEvents.SAMPLE_RESOURCES);
+    }
+
+    @Override
+    public void shutdownEntity() {
+        close();
+    }
+
+    private void writeSample(double now) throws IOException {
+        if (region == null || region.remaining() < blockBytes) {
+            if (region != null) {
+                regionStart += region.position();
+            }
+            region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, Math.max(REGION_BYTES / blockBytes, 1) * blockBytes);
+            region.order(ByteOrder.BIG_ENDIAN);
+        }
+        region.putDouble(now);
+        for (MeteringFogDevice device : devices) {
+            region.putDouble(device.getHost().getUtilizationOfCpu());
+        }
+        for (MeteringFogDevice device : devices) {
+            region.putDouble(device.getExecutingTuples() + device.getDeferredBacklog()
+                    + device.getNorthTupleQueue().size() + device.getSouthTupleQueue().size());
+        }
+        for (int i = 0; i < devices.size(); i++) {
+            MeteringFogDevice device = devices.get(i);
+            double wait = device.getTotalAdmissionWait() + device.getTotalWakeWait();
+            long arrivals = device.getDistinctArrivals() - lastArrivals[i];
+            region.putDouble(arrivals > 0 ? (wait - lastWait[i]) / arrivals : 0);
+            lastWait[i] = wait;
+            lastArrivals[i] = device.getDistinctArrivals();
+        }
+        for (int i = 0; i < devices.size(); i++) {
+            region.putDouble(devices.get(i).getUplinkBytes() - lastUplinkBytes[i]);
+            lastUplinkBytes[i] = devices.get(i).getUplinkBytes();
+        }
+        for (int i = 0; i < devices.size(); i++) {
+            region.putDouble(devices.get(i).getDownlinkBytes() - lastDownlinkBytes[i]);
+            lastDownlinkBytes[i] = devices.get(i).getDownlinkBytes();
+        }
+        samples++;
+    }
+
+    /**
+     * Records the number of samples in the header and cuts the file after the last sample.
+     */
+    public void close() {
+        if (!channel.isOpen()) {
+            return;
+        }
+        try {
+            if (region != null) {
+                region.force();
+                region = null;
+            }
+            file.seek(SAMPLE_COUNT_OFFSET);
+            file.writeLong(samples);
+            channel.truncate(dataStart + samples * blockBytes);
+            file.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public long getSamples() {
+        return samples;
+    }
+}
@@ -0,0 +1,101 @@
+package org.fog.test.perfeval;
+
+/**
+ * Configuration of the hierarchical analytics path: the readings forwarded by the meter modules are rolled up
+ * per site by {@value #SITE_ROLLUP} on the routers, per region by {@value #REGIONAL_ROLLUP} on the proxy, and
+ * the regional roll-ups are consumed by the analytics module in the cloud.
+ * <p>
+ * Each stage emits one roll-up for a {@code selectivity} fraction of its input tuples. A forwarded reading
+ * costs the site stage {@code siteCpu} MI, whether it arrives alone or in a batch. A site roll-up is
+ * {@code siteRollupBytes} long and costs the regional stage {@code regionalCpu} MI; a regional roll-up is
+ * {@code regionalRollupBytes} long and costs the analytics module {@code analyticsCpu} MI.
+ *
+ * @author Narendra : x23429615
+ */
+public class RollupPolicy {
+
+    public static final String SITE_ROLLUP = "site-rollup";
+    public static final String REGIONAL_ROLLUP = "regional-rollup";
+    public static final String SITE_ROLLUP_TUPLE = "SITE_ROLLUP";
+    public static final String REGIONAL_ROLLUP_TUPLE = "REGIONAL_ROLLUP";
+
+    private boolean enabled = false;
+    private double siteCpu = 100;
+    private double siteSelectivity = 0.1;
+    private long siteRollupBytes = 500;
+    private double regionalCpu = 200;
+    private double regionalSelectivity = 0.1;
+    private long regionalRollupBytes = 2000;
+    private double analyticsCpu = 1000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getSiteCpu() {
+        return siteCpu;
+    }
+
+    public void setSiteCpu(double siteCpu) {
+        this.siteCpu = siteCpu;
+    }
+
+    public double getSiteSelectivity() {
+        return siteSelectivity;
+    }
+
+    public void setSiteSelectivity(double siteSelectivity) {
+        this.siteSelectivity = checkSelectivity(siteSelectivity);
+    }
+
+    public long getSiteRollupBytes() {
+        return siteRollupBytes;
+    }
+
+    public void setSiteRollupBytes(long siteRollupBytes) {
+        this.siteRollupBytes = siteRollupBytes;
+    }
+
+    public double getRegionalCpu() {
+        return regionalCpu;
+    }
+
+    public void setRegionalCpu(double regionalCpu) {
+        this.regionalCpu = regionalCpu;
+    }
+
+    public double getRegionalSelectivity() {
+        return regionalSelectivity;
+    }
+
+    public void setRegionalSelectivity(double regionalSelectivity) {
+        this.regionalSelectivity = checkSelectivity(regionalSelectivity);
+    }
+
+    public long getRegionalRollupBytes() {
+        return regionalRollupBytes;
+    }
+
+    public void setRegionalRollupBytes(long regionalRollupBytes) {
+        this.regionalRollupBytes = regionalRollupBytes;
+    }
+
+    public double getAnalyticsCpu() {
+        return analyticsCpu;
+    }
+
+    public void setAnalyticsCpu(double analyticsCpu) {
+        this.analyticsCpu = analyticsCpu;
+    }
+
+    private static double checkSelectivity(double selectivity) {
+        if (selectivity <= 0 || selectivity > 1) {
+            throw new IllegalArgumentException("Selectivity must be in (0, 1] but was " + selectivity);
+        }
+        return selectivity;
+    }
+}
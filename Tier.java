@@ -0,0 +1,13 @@
+package org.fog.test.perfeval;
+
+/**
+ * Levels of the physical topology, from the meter gateways up to the cloud.
+ *
+ * @author Narendra : x23429615
+ */
+public enum Tier {
+    GATEWAY,
+    ROUTER,
+    PROXY,
+    CLOUD
+}
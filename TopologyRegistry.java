@@ -0,0 +1,220 @@
+package org.fog.test.perfeval;
+
+import org.fog.entities.Actuator;
+import org.fog.entities.FogDevice;
+import org.fog.entities.Sensor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typed index of the physical topology built for the Advance Metering Infrastructure simulation.
+ * <p>
+ * Devices are indexed by id, tier, meter type and site, and sensors by name and gateway device, so that
+ * module mapping and placement do not have to scan the device list or rely on device name prefixes.
+ *
+ * @author Narendra : x23429615
+ */
+public class TopologyRegistry {
+
+    private final Map<Integer, FogDevice> devicesById = new HashMap<Integer, FogDevice>();
+    private final Map<Integer, Tier> tierByDevice = new HashMap<Integer, Tier>();
+    private final Map<Integer, Site> siteByDevice = new HashMap<Integer, Site>();
+    private final Map<Integer, MeterType> meterTypeByGateway = new HashMap<Integer, MeterType>();
+    private final Map<Integer, List<Sensor>> sensorsByGateway = new HashMap<Integer, List<Sensor>>();
+    private final Map<String, Sensor> sensorsByName = new HashMap<String, Sensor>();
+    private final Map<Tier, List<FogDevice>> devicesByTier = new EnumMap<Tier, List<FogDevice>>(Tier.class);
+    private final Map<MeterType, List<FogDevice>> gatewaysByMeterType = new EnumMap<MeterType, List<FogDevice>>(MeterType.class);
+    private final Map<String, Site> sites = new LinkedHashMap<String, Site>();
+
+    public TopologyRegistry() {
+        clear();
+    }
+
+    public void clear() {
+        devicesById.clear();
+        tierByDevice.clear();
+        siteByDevice.clear();
+        meterTypeByGateway.clear();
+        sensorsByGateway.clear();
+        sensorsByName.clear();
+        sites.clear();
+        for (Tier tier : Tier.values()) {
+            devicesByTier.put(tier, new ArrayList<FogDevice>());
+        }
+        for (MeterType type : MeterType.values()) {
+            gatewaysByMeterType.put(type, new ArrayList<FogDevice>());
+        }
+    }
+
+    public void registerCloud(FogDevice cloud) {
+        registerDevice(cloud, Tier.CLOUD);
+    }
+
+    public void registerProxy(FogDevice proxy) {
+        registerDevice(proxy, Tier.PROXY);
+    }
+
+    /**
+     * Registers the router of a site, creating the site.
+     */
+    public Site registerRouter(String siteId, FogDevice router) {
+        if (sites.containsKey(siteId)) {
+            throw new IllegalArgumentException("Site " + siteId + " is already registered");
+        }
+        Site site = new Site(siteId, router);
+        sites.put(siteId, site);
+        registerDevice(router, Tier.ROUTER);
+        siteByDevice.put(router.getId(), site);
+        return site;
+    }
+
+    public void registerGateway(String siteId, MeterType type, FogDevice gateway) {
+        Site site = getExistingSite(siteId);
+        registerDevice(gateway, Tier.GATEWAY);
+        siteByDevice.put(gateway.getId(), site);
+        meterTypeByGateway.put(gateway.getId(), type);
+        sensorsByGateway.put(gateway.getId(), new ArrayList<Sensor>());
+        gatewaysByMeterType.get(type).add(gateway);
+        site.gateways.get(type).add(gateway);
+    }
+
+    /**
+     * Registers a sensor attached to a gateway that was registered before. Sensor names must be unique.
+     */
+    public void registerSensor(Sensor sensor, FogDevice gateway) {
+        List<Sensor> gatewaySensors = sensorsByGateway.get(gateway.getId());
+        if (gatewaySensors == null) {
+            throw new IllegalArgumentException("Device " + gateway.getName() + " is not a registered gateway");
+        }
+        if (sensorsByName.put(sensor.getName(), sensor) != null) {
+            throw new IllegalArgumentException("Duplicate sensor name " + sensor.getName());
+        }
+        gatewaySensors.add(sensor);
+        siteByDevice.get(gateway.getId()).sensors.get(meterTypeByGateway.get(gateway.getId())).add(sensor);
+    }
+
+    public void registerActuator(String siteId, Actuator actuator) {
+        getExistingSite(siteId).actuators.add(actuator);
+    }
+
+    private void registerDevice(FogDevice device, Tier tier) {
+        if (devicesById.put(device.getId(), device) != null) {
+            throw new IllegalArgumentException("Device " + device.getName() + " is already registered");
+        }
+        tierByDevice.put(device.getId(), tier);
+        devicesByTier.get(tier).add(device);
+    }
+
+    private Site getExistingSite(String siteId) {
+        Site site = sites.get(siteId);
+        if (site == null) {
+            throw new IllegalArgumentException("Unknown site " + siteId);
+        }
+        return site;
+    }
+
+    public FogDevice getDevice(int deviceId) {
+        return devicesById.get(deviceId);
+    }
+
+    public Tier getTier(int deviceId) {
+        return tierByDevice.get(deviceId);
+    }
+
+    /**
+     * @return the parent of the device, or null for the cloud
+     */
+    public FogDevice getParent(FogDevice device) {
+        return devicesById.get(device.getParentId());
+    }
+
+    public List<FogDevice> getDevices(Tier tier) {
+        return Collections.unmodifiableList(devicesByTier.get(tier));
+    }
+
+    public FogDevice getCloud() {
+        List<FogDevice> clouds = devicesByTier.get(Tier.CLOUD);
+        return clouds.isEmpty() ? null : clouds.get(0);
+    }
+
+    public List<FogDevice> getGateways(MeterType type) {
+        return Collections.unmodifiableList(gatewaysByMeterType.get(type));
+    }
+
+    /**
+     * @return meter type served by the gateway, or null if the device is not a gateway
+     */
+    public MeterType getMeterType(int gatewayId) {
+        return meterTypeByGateway.get(gatewayId);
+    }
+
+    public List<Sensor> getSensors(int gatewayId) {
+        List<Sensor> gatewaySensors = sensorsByGateway.get(gatewayId);
+        return gatewaySensors == null ? Collections.<Sensor>emptyList() : Collections.unmodifiableList(gatewaySensors);
+    }
+
+    public Sensor getSensor(String name) {
+        return sensorsByName.get(name);
+    }
+
+    public Site getSite(String siteId) {
+        return sites.get(siteId);
+    }
+
+    /**
+     * @return site the router or gateway belongs to, or null for devices above the routers
+     */
+    public Site getSiteOf(int deviceId) {
+        return siteByDevice.get(deviceId);
+    }
+
+    public List<Site> getSites() {
+        return new ArrayList<Site>(sites.values());
+    }
+
+    /**
+     * A metering site: one router with the gateways, sensors and actuators behind it.
+     */
+    public static class Site {
+        private final String id;
+        private final FogDevice router;
+        private final Map<MeterType, List<FogDevice>> gateways = new EnumMap<MeterType, List<FogDevice>>(MeterType.class);
+        private final Map<MeterType, List<Sensor>> sensors = new EnumMap<MeterType, List<Sensor>>(MeterType.class);
+        private final List<Actuator> actuators = new ArrayList<Actuator>();
+
+        Site(String id, FogDevice router) {
+            this.id = id;
+            this.router = router;
+            for (MeterType type : MeterType.values()) {
+                gateways.put(type, new ArrayList<FogDevice>());
+                sensors.put(type, new ArrayList<Sensor>());
+            }
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public FogDevice getRouter() {
+            return router;
+        }
+
+        public List<FogDevice> getGateways(MeterType type) {
+            return Collections.unmodifiableList(gateways.get(type));
+        }
+
+        public List<Sensor> getSensors(MeterType type) {
+            return Collections.unmodifiableList(sensors.get(type));
+        }
+
+        public List<Actuator> getActuators() {
+            return Collections.unmodifiableList(actuators);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.fog.test.perfeval;
+
+import org.fog.utils.distribution.Distribution;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Replays recorded inter-arrival times from a local text file with one value per line; blank lines and lines
+ * starting with {@code #} are skipped. Each meter starts at its own offset into the trace and wraps around at
+ * its end. A trace file is read once and shared by all meters replaying it.
+ *
+ * @author Narendra : x23429615
+ */
+public class TraceDistribution extends Distribution {
+
+    private static final Map<String, double[]> TRACES = new HashMap<String, double[]>();
+
+    private final double[] trace;
+    private final double mean;
+    private int position;
+
+    public TraceDistribution(String path, int offset) throws IOException {
+        this.trace = load(path);
+        double sum = 0;
+        for (double value : trace) {
+            sum += value;
+        }
+        this.mean = sum / trace.length;
+        this.position = Math.abs(offset % trace.length);
+    }
+
+    private static synchronized double[] load(String path) throws IOException {
+        double[] trace = TRACES.get(path);
+        if (trace != null) {
+            return trace;
+        }
+        double[] values = new double[1024];
+        int count = 0;
+        BufferedReader reader = new BufferedReader(new FileReader(path));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                if (count == values.length) {
+                    values = Arrays.copyOf(values, 2 * count);
+                }
+                values[count++] = Double.parseDouble(line);
+            }
+        } finally {
+            reader.close();
+        }
+        if (count == 0) {
+            throw new IOException("Inter-arrival trace " + path + " is empty");
+        }
+        trace = Arrays.copyOf(values, count);
+        TRACES.put(path, trace);
+        return trace;
+    }
+
+    @Override
+    public double getNextValue() {
+        double value = trace[position];
+        position = (position + 1) % trace.length;
+        return value;
+    }
+
+    @Override
+    public int getDistributionType() {
+        return -1;
+    }
+
+    @Override
+    public double getMeanInterTransmitTime() {
+        return mean;
+    }
+}
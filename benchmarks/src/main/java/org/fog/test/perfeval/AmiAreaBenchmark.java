@@ -0,0 +1,52 @@
+package org.fog.test.perfeval;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.fog.entities.FogDevice;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Calendar;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of adding one site with {@code addArea}. The topology is emptied before every iteration, so an
+ * iteration measures the marginal cost of a site while the topology grows from zero.
+ *
+ * @author Narendra : x23429615
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AmiAreaBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int meterDensity;
+
+    private int nextSite;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        AmiBenchmarkScenario.apply(0, meterDensity);
+        CloudSim.init(1, Calendar.getInstance(), false);
+        AdvanceMeteringInfrastructure.resetTopology();
+        nextSite = 0;
+    }
+
+    @Benchmark
+    public FogDevice addArea() {
+        return AdvanceMeteringInfrastructure.addArea(String.valueOf(nextSite++), 1, AmiBenchmarkScenario.APP_ID, -1);
+    }
+}
@@ -0,0 +1,26 @@
+package org.fog.test.perfeval;
+
+/**
+ * Scales the scenario of {@link AdvanceMeteringInfrastructure} for the benchmarks.
+ *
+ * @author Narendra : x23429615
+ */
+class AmiBenchmarkScenario {
+
+    static final String APP_ID = "AdvanceMeteringInfrastructureApplication";
+
+    private AmiBenchmarkScenario() {
+    }
+
+    /**
+     * @param numOfSites   number of sites behind the proxy server
+     * @param meterDensity multiple of the default number of meters per field
+     */
+    static void apply(int numOfSites, int meterDensity) {
+        AdvanceMeteringInfrastructure.numOfSites = numOfSites;
+        AdvanceMeteringInfrastructure.numOfPulseMeterPerField = 8 * meterDensity;
+        AdvanceMeteringInfrastructure.numOfElectricitySensors = 10 * meterDensity;
+        AdvanceMeteringInfrastructure.frequencySensorPerFields = 4 * meterDensity;
+        AdvanceMeteringInfrastructure.analogValueMeterPerField = 6 * meterDensity;
+    }
+}
@@ -0,0 +1,59 @@
+package org.fog.test.perfeval;
+
+import org.cloudbus.cloudsim.Log;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Run of the simulation on CloudSim's sorted-set future event list and on the {@link CalendarFutureQueue}.
+ * The speedup at a site count is the ratio of the two scores.
+ * <p>
+ * Topology construction and placement do not touch the future event list, so they are done in the setup and
+ * only the event loop is timed. The 100000 site runs need a large heap, e.g. {@code -jvmArgs -Xmx32g}.
+ *
+ * @author Narendra : x23429615
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class AmiEventQueueBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int numOfSites;
+
+    @Param({"sorted", "calendar"})
+    public String eventQueue;
+
+    @Param({"200"})
+    public double horizon;
+
+    @Setup(Level.Invocation)
+    public void setUp() throws Exception {
+        Log.disable();
+        AmiBenchmarkScenario.apply(numOfSites, 1);
+        AdvanceMeteringInfrastructure.calendarEventQueue = eventQueue.equals("calendar");
+        AdvanceMeteringInfrastructure.simulationHorizon = horizon;
+        AdvanceMeteringInfrastructure.prepareSimulation();
+    }
+
+    @Benchmark
+    public double simulate() throws Exception {
+        AdvanceMeteringInfrastructure.executeSimulation();
+        return AdvanceMeteringInfrastructure.latencyRecorder.getHistogram(0).getMean();
+    }
+}
@@ -0,0 +1,54 @@
+package org.fog.test.perfeval;
+
+import org.fog.placement.ModuleMapping;
+import org.fog.placement.ModulePlacement;
+import org.fog.placement.ModulePlacementEdgewards;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time taken by {@link ModulePlacementEdgewards} to place the application on a freshly built topology.
+ *
+ * @author Narendra : x23429615
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AmiPlacementBenchmark {
+
+    @Param({"30", "300", "3000", "30000", "100000"})
+    public int numOfSites;
+
+    @Param({"1", "4"})
+    public int meterDensity;
+
+    private ModuleMapping moduleMapping;
+
+    @Setup(Level.Invocation)
+    public void setUp() throws Exception {
+        AmiBenchmarkScenario.apply(numOfSites, meterDensity);
+        AdvanceMeteringInfrastructure.setUpScenario();
+        moduleMapping = AdvanceMeteringInfrastructure.createModuleMapping();
+    }
+
+    @Benchmark
+    public ModulePlacement placeEdgewards() {
+        return new ModulePlacementEdgewards(AdvanceMeteringInfrastructure.fogDevices, AdvanceMeteringInfrastructure.sensors,
+                AdvanceMeteringInfrastructure.actuators, AdvanceMeteringInfrastructure.application, moduleMapping);
+    }
+}
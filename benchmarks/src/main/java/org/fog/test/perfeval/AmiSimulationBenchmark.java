@@ -0,0 +1,58 @@
+package org.fog.test.perfeval;
+
+import org.cloudbus.cloudsim.Log;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end run of the simulation for {@code horizon} units of simulated time, including topology
+ * construction and placement. Simulated time per wall-clock second is {@code horizon / score}.
+ * <p>
+ * The horizon must stay below {@code Config.MAX_SIMULATION_TIME}, at which the Controller exits the JVM.
+ * The TimeKeeper is process wide and keeps the timings of earlier invocations, hence one fork per parameter
+ * combination and few iterations.
+ *
+ * @author Narendra : x23429615
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class AmiSimulationBenchmark {
+
+    @Param({"30", "300", "3000", "30000", "100000"})
+    public int numOfSites;
+
+    @Param({"1", "4"})
+    public int meterDensity;
+
+    @Param({"1000"})
+    public double horizon;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        Log.disable();
+        AmiBenchmarkScenario.apply(numOfSites, meterDensity);
+        AdvanceMeteringInfrastructure.simulationHorizon = horizon;
+    }
+
+    @Benchmark
+    public double simulate() throws Exception {
+        AdvanceMeteringInfrastructure.runSimulation();
+        return AdvanceMeteringInfrastructure.latencyRecorder.getHistogram(0).getMean();
+    }
+}
@@ -0,0 +1,51 @@
+package org.fog.test.perfeval;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Calendar;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building the whole physical topology with {@code createFogDevices}.
+ *
+ * @author Narendra : x23429615
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AmiTopologyBenchmark {
+
+    @Param({"30", "300", "3000", "30000", "100000"})
+    public int numOfSites;
+
+    @Param({"1", "4"})
+    public int meterDensity;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        AmiBenchmarkScenario.apply(numOfSites, meterDensity);
+        CloudSim.init(1, Calendar.getInstance(), false);
+        AdvanceMeteringInfrastructure.resetTopology();
+    }
+
+    @Benchmark
+    public TopologyRegistry createFogDevices() {
+        AdvanceMeteringInfrastructure.createFogDevices(1, AmiBenchmarkScenario.APP_ID);
+        return AdvanceMeteringInfrastructure.topology;
+    }
+}